@@ -2,8 +2,10 @@ package cl.sergiocarocca.cita_ideal_cl;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CitaIdealClApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,240 @@
+package cl.sergiocarocca.cita_ideal_cl.config;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import cl.sergiocarocca.cita_ideal_cl.service.VersionContenido;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Caché de páginas completas para los visitantes anónimos de las páginas públicas
+ * (inicio, productos y galería). La primera visita renderiza la plantilla y guarda el HTML
+ * junto con la {@link VersionContenido} con que se generó; las siguientes lo reciben sin
+ * pasar por el controlador ni por Thymeleaf, hasta que un cambio de planes o fotos
+ * incrementa la versión o vence el TTL. Cada página lleva un ETag, y un
+ * {@code If-None-Match} vigente se responde con 304 sin cuerpo.
+ * <p>
+ * Las páginas con formularios POST contienen el token CSRF del visitante: se guardan con
+ * un marcador en su lugar, que se reemplaza por el token de cada petición, y su ETag
+ * incluye la sesión para que el navegador no reutilice un token de otra sesión.
+ * No se usa la caché con usuarios autenticados, con parámetros en la URL ni cuando la
+ * sesión tiene mensajes flash pendientes.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class CachePaginasFilter extends OncePerRequestFilter {
+
+    /** Ocupa el lugar del token CSRF en el HTML guardado; no puede aparecer en una página real. */
+    private static final String MARCADOR_CSRF = "\u0000csrf\u0000";
+
+    /** Atributo de sesión donde {@link SessionFlashMapManager} guarda los mensajes flash. */
+    private static final String MENSAJES_FLASH = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+    /**
+     * Página renderizada.
+     * @param cuerpo HTML listo para enviar (null si la página tiene token CSRF).
+     * @param plantilla HTML con {@link #MARCADOR_CSRF} en lugar del token (null si no tiene).
+     */
+    private record Pagina(long version, long expiraNanos, String etag, String contentType,
+                          byte[] cuerpo, String plantilla, Charset charset) {
+    }
+
+    private final ConcurrentHashMap<String, Pagina> paginas = new ConcurrentHashMap<>();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder noModificadas = new LongAdder();
+
+    private final VersionContenido versionContenido;
+    private final Set<String> rutas;
+    private final long ttlNanos;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param versionContenido Versión del contenido público.
+     * @param rutas Rutas de las páginas a guardar.
+     * @param ttl Duración máxima de una página aunque la versión no cambie.
+     */
+    public CachePaginasFilter(VersionContenido versionContenido,
+                              @Value("${citaideal.paginas.cache-rutas:/,/productos,/galeria}") List<String> rutas,
+                              @Value("${citaideal.paginas.cache-ttl:5m}") Duration ttl) {
+        this.versionContenido = versionContenido;
+        this.rutas = Set.copyOf(rutas);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod())
+                || request.getQueryString() != null
+                || !rutas.contains(ruta(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!esAnonimo() || tieneMensajesFlash(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String ruta = ruta(request);
+        long version = versionContenido.actual();
+        Pagina pagina = paginas.get(ruta);
+        if (pagina != null && pagina.version() == version && pagina.expiraNanos() - System.nanoTime() > 0) {
+            aciertos.increment();
+            servir(pagina, request, response);
+            return;
+        }
+
+        fallos.increment();
+        ContentCachingResponseWrapper envoltura = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, envoltura);
+        Pagina nueva = guardable(request, envoltura, version);
+        if (nueva != null && versionContenido.actual() == version) {
+            paginas.put(ruta, nueva);
+            cabeceras(nueva, request, envoltura);
+        }
+        envoltura.copyBodyToResponse();
+    }
+
+    /**
+     * Contadores de uso de la caché.
+     * * @return Mapa con aciertos, fallos, respuestas 304 y páginas guardadas.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> datos = new LinkedHashMap<>();
+        datos.put("aciertos", aciertos.sum());
+        datos.put("fallos", fallos.sum());
+        datos.put("noModificadas", noModificadas.sum());
+        datos.put("paginas", (long) paginas.size());
+        return datos;
+    }
+
+    private void servir(Pagina pagina, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // El token se obtiene antes del ETag: si el visitante no tenía sesión, aquí se crea
+        String token = pagina.plantilla() != null ? tokenCsrf(request) : null;
+        String etag = cabeceras(pagina, request, response);
+        if (coincide(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            noModificadas.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] cuerpo = token == null
+                ? pagina.cuerpo()
+                : pagina.plantilla().replace(MARCADOR_CSRF, token).getBytes(pagina.charset());
+        response.setContentType(pagina.contentType());
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+    }
+
+    /** Escribe ETag y Cache-Control; sin este último Spring Security enviaría no-store y no habría revalidación. */
+    private String cabeceras(Pagina pagina, HttpServletRequest request, HttpServletResponse response) {
+        String etag = pagina.etag();
+        if (pagina.plantilla() != null) {
+            HttpSession sesion = request.getSession(false);
+            String idSesion = sesion != null ? sesion.getId() : "";
+            etag = etag.substring(0, etag.length() - 1) + "-" + Integer.toHexString(idSesion.hashCode()) + "\"";
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, pagina.plantilla() != null ? "private, no-cache" : "no-cache");
+        return etag;
+    }
+
+    /** Construye la página a guardar, o null si la respuesta no es un HTML completo y cacheable. */
+    private Pagina guardable(HttpServletRequest request, ContentCachingResponseWrapper respuesta, long version) {
+        String contentType = respuesta.getContentType();
+        if (respuesta.getStatus() != HttpServletResponse.SC_OK || contentType == null
+                || !contentType.startsWith("text/html")) {
+            return null;
+        }
+        byte[] cuerpo = respuesta.getContentAsByteArray();
+        Charset charset = Charset.forName(respuesta.getCharacterEncoding(), StandardCharsets.UTF_8);
+        String plantilla = null;
+        String html = new String(cuerpo, charset);
+        if (html.contains("name=\"_csrf\"")) {
+            // Solo se consulta el token si la página lo usa, para no crear sesiones innecesarias
+            String token = tokenCsrf(request);
+            if (token == null || !html.contains(token)) {
+                return null;
+            }
+            plantilla = html.replace(token, MARCADOR_CSRF);
+        }
+        String etag = "\"" + Long.toHexString(version) + "-" + resumen(cuerpo, plantilla, charset) + "\"";
+        return new Pagina(version, System.nanoTime() + ttlNanos, etag, contentType,
+                plantilla == null ? cuerpo : null, plantilla, charset);
+    }
+
+    private static String resumen(byte[] cuerpo, String plantilla, Charset charset) {
+        try {
+            byte[] contenido = plantilla != null ? plantilla.getBytes(charset) : cuerpo;
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.strip();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag) || valor.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String tokenCsrf(HttpServletRequest request) {
+        CsrfToken csrf = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        return csrf != null ? csrf.getToken() : null;
+    }
+
+    private static boolean esAnonimo() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion == null || autenticacion instanceof AnonymousAuthenticationToken;
+    }
+
+    private static boolean tieneMensajesFlash(HttpServletRequest request) {
+        HttpSession sesion = request.getSession(false);
+        return sesion != null && sesion.getAttribute(MENSAJES_FLASH) instanceof Collection<?> mensajes
+                && !mensajes.isEmpty();
+    }
+
+    private static String ruta(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
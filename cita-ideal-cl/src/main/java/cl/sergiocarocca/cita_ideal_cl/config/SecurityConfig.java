@@ -3,6 +3,7 @@ package cl.sergiocarocca.cita_ideal_cl.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -48,6 +49,8 @@ public class SecurityConfig {
                 .requestMatchers("/", "/index", "/galeria", "/login", "/registro", "/contacto/**", "/productos").permitAll()    
                 // Recursos estáticos (CSS, JS, Imágenes)
                 .requestMatchers("/assets/**").permitAll()
+                // Catálogo público consultado por los frontends externos
+                .requestMatchers(HttpMethod.GET, "/api/planes").permitAll()
                 // Restricción para el panel de administración
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 // Cualquier otra petición requiere autenticación
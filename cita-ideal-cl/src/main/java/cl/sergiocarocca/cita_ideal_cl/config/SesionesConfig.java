@@ -0,0 +1,86 @@
+package cl.sergiocarocca.cita_ideal_cl.config;
+
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.CarritoCompacto;
+
+/**
+ * Configuración de las sesiones HTTP guardadas en PostgreSQL (Spring Session JDBC), para
+ * que cualquier nodo atienda cualquier petición y los carritos sobrevivan a un reinicio.
+ * Spring Session ya escribe solo los atributos modificados y deserializa cada atributo
+ * recién cuando se lee; aquí se agregan un formato binario propio para el carrito y
+ * una limpieza de sesiones vencidas por lotes.
+ * <p>
+ * El resto del estado compartido también vive en PostgreSQL: las retenciones de franjas
+ * del checkout (tabla {@code retenciones_franjas}) y la unicidad de cada franja reservada
+ * (índice {@code ux_reservas_plan_fecha_activa}). Lo que cada nodo guarda en memoria es solo
+ * una aproximación: el índice de disponibilidad confirma con la base de datos toda franja
+ * que ve ocupada y se recarga periódicamente; las cachés de disponibilidad, de planes y de
+ * páginas vencen por TTL; y los avisos SSE de franjas solo llegan a los formularios
+ * conectados al nodo donde ocurrió el cambio.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Configuration
+public class SesionesConfig {
+
+    /**
+     * Primer byte de un carrito serializado. La serialización estándar de Java siempre
+     * comienza con 0xACED, por lo que ambos formatos se distinguen sin ambigüedad.
+     */
+    private static final byte MARCA_CARRITO = 0x01;
+
+    /**
+     * Conversión de los atributos de sesión a bytes: el carrito se guarda con su formato
+     * varint (unos pocos bytes, sin el descriptor de clase de Java) y el resto de los
+     * atributos (contexto de seguridad, token CSRF, mensajes flash) con la serialización estándar.
+     * * @return Servicio de conversión usado por Spring Session.
+     */
+    @Bean("springSessionConversionService")
+    ConversionService springSessionConversionService() {
+        SerializingConverter serializar = new SerializingConverter();
+        DeserializingConverter deserializar = new DeserializingConverter(SesionesConfig.class.getClassLoader());
+
+        GenericConversionService conversion = new GenericConversionService();
+        conversion.addConverter(Object.class, byte[].class, valor -> {
+            if (valor instanceof CarritoCompacto carrito) {
+                byte[] contenido = carrito.serializar();
+                byte[] bytes = new byte[contenido.length + 1];
+                bytes[0] = MARCA_CARRITO;
+                System.arraycopy(contenido, 0, bytes, 1, contenido.length);
+                return bytes;
+            }
+            return serializar.convert(valor);
+        });
+        conversion.addConverter(byte[].class, Object.class, bytes -> bytes.length > 0 && bytes[0] == MARCA_CARRITO
+                ? CarritoCompacto.deserializar(Arrays.copyOfRange(bytes, 1, bytes.length))
+                : deserializar.convert(bytes));
+        return conversion;
+    }
+
+    /**
+     * Limpieza de sesiones vencidas por lotes: cada ejecución (spring.session.jdbc.cleanup-cron)
+     * borra como máximo {@code lote} sesiones, en orden de vencimiento. SKIP LOCKED evita que
+     * dos nodos limpiando a la vez se bloqueen entre sí; los atributos se borran en cascada.
+     * * @param lote Máximo de sesiones borradas por ejecución.
+     * @return Ajuste del repositorio de sesiones.
+     */
+    @Bean
+    SessionRepositoryCustomizer<JdbcIndexedSessionRepository> limpiezaSesionesPorLotes(
+            @Value("${citaideal.sesiones.limpieza-lote:2000}") int lote) {
+        return repositorio -> repositorio.setDeleteSessionsByExpiryTimeQuery(
+                "DELETE FROM %TABLE_NAME% WHERE PRIMARY_ID IN ("
+                + "SELECT PRIMARY_ID FROM %TABLE_NAME% WHERE EXPIRY_TIME < ? "
+                + "ORDER BY EXPIRY_TIME LIMIT " + lote + " FOR UPDATE SKIP LOCKED)");
+    }
+}
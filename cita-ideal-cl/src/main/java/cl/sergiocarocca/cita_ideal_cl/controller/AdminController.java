@@ -1,19 +1,33 @@
 	package cl.sergiocarocca.cita_ideal_cl.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.dto.EstadisticaPeriodo;
+import cl.sergiocarocca.cita_ideal_cl.dto.FiltroReservas;
+import cl.sergiocarocca.cita_ideal_cl.dto.PaginaReservas;
 import cl.sergiocarocca.cita_ideal_cl.entity.Consulta;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
 import cl.sergiocarocca.cita_ideal_cl.entity.Usuario;
 import cl.sergiocarocca.cita_ideal_cl.repository.ConsultaRepository;
+import cl.sergiocarocca.cita_ideal_cl.service.EstadisticasService;
+import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
 import cl.sergiocarocca.cita_ideal_cl.service.ReservaService;
 import cl.sergiocarocca.cita_ideal_cl.service.UsuarioService;
 
@@ -30,19 +44,25 @@ public class AdminController {
     private final ConsultaRepository consultaRepository;
     private final ReservaService reservaService;
     private final UsuarioService usuarioService;
+    private final PlanService planService;
+    private final EstadisticasService estadisticasService;
 
     /**
      * Constructor para la inyección de dependencias.
      * * @param consultaRepository Repositorio para la gestión de consultas de contacto.
      * @param reservaService Servicio para la lógica de negocio de reservas.
      * @param usuarioService Servicio para la gestión de cuentas de usuario.
+     * @param planService Servicio de planes, para el filtro del listado de reservas.
+     * @param estadisticasService Servicio del resumen de estadísticas de reservas.
      */
     public AdminController(ConsultaRepository consultaRepository, ReservaService reservaService,
-            UsuarioService usuarioService) {
+            UsuarioService usuarioService, PlanService planService, EstadisticasService estadisticasService) {
         super();
         this.consultaRepository = consultaRepository;
         this.reservaService = reservaService;
         this.usuarioService = usuarioService;
+        this.planService = planService;
+        this.estadisticasService = estadisticasService;
     }
 
     /**
@@ -59,18 +79,77 @@ public class AdminController {
     }
 
     /**
-     * Obtiene y muestra el listado global de reservas en el dashboard administrativo.
-     * * @param model Objeto para pasar datos a la vista.
+     * Muestra una página del listado global de reservas en el dashboard administrativo.
+     * La paginación es por clave: la página siguiente se pide con la fecha y el id de la
+     * última reserva mostrada, lo que mantiene constante el costo de cada página.
+     * Con un código de seguimiento se muestra solo esa reserva (los filtros se ignoran).
+     * * @param filtro Filtros opcionales de estado, plan y rango de fechas.
+     * @param codigo Código de seguimiento a buscar (opcional).
+     * @param despuesFecha Fecha de la última reserva de la página anterior.
+     * @param despuesId Id de la última reserva de la página anterior.
+     * @param model Objeto para pasar datos a la vista.
      * @return El nombre de la plantilla HTML del dashboard de reservas.
      */
     @GetMapping("/reservas")
-    public String listarReservas(Model model) {
-        List<Reserva> listaReservas = reservaService.listarTodas();
-        model.addAttribute("reservas", listaReservas);
+    public String listarReservas(@ModelAttribute("filtro") FiltroReservas filtro,
+                                 @RequestParam(required = false) String codigo,
+                                 @RequestParam(required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesFecha,
+                                 @RequestParam(required = false) Long despuesId,
+                                 Model model) {
+        if (codigo != null && !codigo.isBlank()) {
+            List<Reserva> encontradas = List.of();
+            try {
+                Reserva reserva = reservaService.buscarPorCodigo(codigo);
+                if (reserva != null) {
+                    encontradas = List.of(reserva);
+                } else {
+                    model.addAttribute("mensajeError", "No existe una reserva con el código " + codigo.strip() + ".");
+                }
+            } catch (Exception e) {
+                model.addAttribute("mensajeError", e.getMessage());
+            }
+            model.addAttribute("pagina", new PaginaReservas(encontradas, null, null));
+        } else {
+            model.addAttribute("pagina", reservaService.buscarPagina(filtro, despuesFecha, despuesId));
+        }
+        model.addAttribute("codigo", codigo);
+        model.addAttribute("planes", planService.listarTodos());
+        model.addAttribute("esPrimeraPagina", despuesId == null);
         model.addAttribute("seccion", "reservas"); 
         return "admin/dashboard-reservas"; 
     }
 
+    /**
+     * Muestra las estadísticas de reservas e ingresos por plan, agrupadas por día,
+     * semana o mes. Se leen del resumen precalculado, no de la tabla de reservas.
+     * * @param periodo Agrupación solicitada (DIA, SEMANA o MES).
+     * @param desde Primer día del rango (opcional).
+     * @param hasta Último día del rango (opcional).
+     * @param model Objeto para pasar datos a la vista.
+     * @return El nombre de la plantilla HTML de estadísticas.
+     */
+    @GetMapping("/estadisticas")
+    public String verEstadisticas(@RequestParam(defaultValue = "DIA") EstadisticasService.Periodo periodo,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                  Model model) {
+        List<EstadisticaPeriodo> filas = estadisticasService.resumen(periodo, desde, hasta);
+        long total = filas.stream().mapToLong(EstadisticaPeriodo::total).sum();
+        long confirmadas = filas.stream().mapToLong(EstadisticaPeriodo::confirmadas).sum();
+        Dinero ingresos = new Dinero(filas.stream().mapToLong(f -> f.ingresos().pesos()).sum());
+
+        model.addAttribute("filas", filas);
+        model.addAttribute("periodo", periodo);
+        model.addAttribute("desde", desde);
+        model.addAttribute("hasta", hasta);
+        model.addAttribute("totalReservas", total);
+        model.addAttribute("totalIngresos", ingresos);
+        model.addAttribute("tasaConfirmacion", total == 0 ? 0 : confirmadas * 100.0 / total);
+        model.addAttribute("seccion", "estadisticas");
+        return "admin/estadisticas";
+    }
+
     /**
      * Recupera la lista completa de usuarios registrados en el sistema.
      * * @param model Objeto para pasar datos a la vista.
@@ -94,6 +173,34 @@ public class AdminController {
         return "redirect:/admin/reservas"; 
     }
 
+    /**
+     * Confirma o cancela en bloque las reservas seleccionadas en el listado.
+     * Las que no admiten el cambio (por ejemplo, confirmar una cancelada) se omiten.
+     * * @param ids Identificadores de las reservas marcadas (puede venir vacío).
+     * @param estado Estado de destino: CONFIRMADA o CANCELADA.
+     * @param flash Objeto para enviar el resultado tras la redirección.
+     * @return Redirección al listado de reservas.
+     */
+    @PostMapping("/reservas/estado")
+    public String cambiarEstadoReservas(@RequestParam(name = "ids", required = false) List<Long> ids,
+                                        @RequestParam EstadoReserva estado,
+                                        RedirectAttributes flash) {
+        if (ids == null || ids.isEmpty()) {
+            flash.addFlashAttribute("error", "Selecciona al menos una reserva.");
+            return "redirect:/admin/reservas";
+        }
+        long seleccionadas = ids.stream().distinct().count();
+        int cambiadas = reservaService.cambiarEstado(ids, estado);
+        String accion = estado == EstadoReserva.CANCELADA ? "canceladas" : "confirmadas";
+        if (cambiadas == seleccionadas) {
+            flash.addFlashAttribute("success", cambiadas + " reserva(s) " + accion + ".");
+        } else {
+            flash.addFlashAttribute("error", cambiadas + " reserva(s) " + accion + "; "
+                    + (seleccionadas - cambiadas) + " no admitían el cambio desde su estado actual.");
+        }
+        return "redirect:/admin/reservas";
+    }
+
     /**
      * Elimina un usuario del sistema basado en su ID único.
      * * @param id El identificador único del usuario a eliminar.
@@ -0,0 +1,85 @@
+package cl.sergiocarocca.cita_ideal_cl.controller;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import cl.sergiocarocca.cita_ideal_cl.service.ExportacionService;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Controlador de descargas del panel de administración.
+ * Los archivos se escriben directamente en la respuesta a medida que se leen de la base
+ * de datos, sin armar antes la lista completa en memoria.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/admin/exportar")
+public class AdminExportacionController {
+
+    private final ExportacionService exportacionService;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param exportacionService Servicio que genera los archivos de exportación.
+     */
+    public AdminExportacionController(ExportacionService exportacionService) {
+        this.exportacionService = exportacionService;
+    }
+
+    /**
+     * Descarga todas las reservas.
+     * * @param formato "csv" (por defecto) o "json".
+     * @param response Respuesta HTTP en la que se escribe el archivo.
+     * @throws IOException Si el cliente interrumpe la descarga.
+     */
+    @GetMapping("/reservas")
+    public void exportarReservas(@RequestParam(defaultValue = "csv") String formato,
+                                 HttpServletResponse response) throws IOException {
+        if (esJson(formato)) {
+            prepararDescarga(response, "reservas", "json", MediaType.APPLICATION_JSON_VALUE);
+            exportacionService.exportarReservasJson(response.getOutputStream());
+        } else {
+            prepararDescarga(response, "reservas", "csv", "text/csv;charset=UTF-8");
+            exportacionService.exportarReservasCsv(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Descarga todas las consultas de contacto.
+     * * @param formato "csv" (por defecto) o "json".
+     * @param response Respuesta HTTP en la que se escribe el archivo.
+     * @throws IOException Si el cliente interrumpe la descarga.
+     */
+    @GetMapping("/consultas")
+    public void exportarConsultas(@RequestParam(defaultValue = "csv") String formato,
+                                  HttpServletResponse response) throws IOException {
+        if (esJson(formato)) {
+            prepararDescarga(response, "consultas", "json", MediaType.APPLICATION_JSON_VALUE);
+            exportacionService.exportarConsultasJson(response.getOutputStream());
+        } else {
+            prepararDescarga(response, "consultas", "csv", "text/csv;charset=UTF-8");
+            exportacionService.exportarConsultasCsv(response.getOutputStream());
+        }
+    }
+
+    private static boolean esJson(String formato) {
+        return "json".equalsIgnoreCase(formato);
+    }
+
+    private static void prepararDescarga(HttpServletResponse response, String nombre, String extension,
+                                         String tipo) {
+        response.setContentType(tipo);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(nombre + "-" + LocalDate.now() + "." + extension)
+                .build().toString());
+    }
+}
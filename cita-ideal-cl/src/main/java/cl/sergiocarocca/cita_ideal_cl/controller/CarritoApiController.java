@@ -0,0 +1,104 @@
+package cl.sergiocarocca.cita_ideal_cl.controller;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.EstadoCarrito;
+import cl.sergiocarocca.cita_ideal_cl.service.CarritoService;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * API JSON del carrito de compras. Cada acción responde con el {@link EstadoCarrito}
+ * actualizado, de modo que la página se actualiza en el lugar con una sola petición en
+ * vez de redirigir a {@code /carrito/ver} y volver a renderizarla. El estado incluye la
+ * disponibilidad de la fecha elegida para cada ítem, validada con una sola consulta.
+ * Las acciones que modifican el carrito requieren el token CSRF en la cabecera.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/carrito")
+public class CarritoApiController {
+
+    private final CarritoService carritoService;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param carritoService Servicio del carrito de la sesión.
+     */
+    public CarritoApiController(CarritoService carritoService) {
+        this.carritoService = carritoService;
+    }
+
+    /**
+     * Devuelve el contenido actual del carrito.
+     * * @param session Sesión HTTP donde reside el carrito.
+     * @return Estado del carrito.
+     */
+    @GetMapping
+    public EstadoCarrito ver(HttpSession session) {
+        return carritoService.estado(session);
+    }
+
+    /**
+     * Agrega una unidad del plan al carrito.
+     * * @param planId Identificador del plan.
+     * @param session Sesión HTTP donde reside el carrito.
+     * @return Estado actualizado, o 404 con el estado sin cambios si el plan no está disponible.
+     */
+    @PostMapping("/items/{planId}")
+    public ResponseEntity<EstadoCarrito> agregar(@PathVariable Long planId, HttpSession session) {
+        HttpStatus status = carritoService.agregar(session, planId) ? HttpStatus.OK : HttpStatus.NOT_FOUND;
+        return ResponseEntity.status(status).body(carritoService.estado(session));
+    }
+
+    /**
+     * Elige la fecha y hora de la cita de un plan del carrito.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora en formato ISO (ej: 2026-10-20T15:00).
+     * @param session Sesión HTTP donde reside el carrito.
+     * @return Estado actualizado con la disponibilidad de cada ítem, o 400 con el estado
+     *         sin cambios si el plan no está en el carrito o la fecha ya pasó.
+     */
+    @PutMapping("/items/{planId}/fecha")
+    public ResponseEntity<EstadoCarrito> elegirFecha(@PathVariable Long planId,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha,
+                                                     HttpSession session) {
+        HttpStatus status = carritoService.asignarFecha(session, planId, fecha) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(carritoService.estado(session));
+    }
+
+    /**
+     * Quita un plan del carrito.
+     * * @param planId Identificador del plan.
+     * @param session Sesión HTTP donde reside el carrito.
+     * @return Estado actualizado.
+     */
+    @DeleteMapping("/items/{planId}")
+    public EstadoCarrito quitar(@PathVariable Long planId, HttpSession session) {
+        carritoService.quitar(session, planId);
+        return carritoService.estado(session);
+    }
+
+    /**
+     * Vacía el carrito.
+     * * @param session Sesión HTTP donde reside el carrito.
+     * @return Estado del carrito vacío.
+     */
+    @DeleteMapping
+    public EstadoCarrito vaciar(HttpSession session) {
+        carritoService.vaciar(session);
+        return carritoService.estado(session);
+    }
+}
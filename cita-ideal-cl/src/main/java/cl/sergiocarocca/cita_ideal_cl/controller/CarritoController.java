@@ -1,7 +1,5 @@
 package cl.sergiocarocca.cita_ideal_cl.controller;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,17 +9,18 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-
 import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
-import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
-import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
+import cl.sergiocarocca.cita_ideal_cl.service.CarritoService;
 import jakarta.servlet.http.HttpSession;
 
 /**
  * Controlador para gestionar el carrito de compras de la aplicación.
- * Utiliza la sesión HTTP para persistir los ítems seleccionados por el usuario
- * antes de proceder al proceso de reserva o checkout.
+ * Utiliza la sesión HTTP para persistir los planes seleccionados por el usuario
+ * antes de proceder al proceso de reserva o checkout. La sesión solo guarda los ids
+ * y cantidades; los datos de cada plan se obtienen del catálogo al mostrar el carrito.
+ * Las páginas usan {@link CarritoApiController} para actualizarse sin recargar; estas
+ * rutas con redirección quedan para los navegadores sin JavaScript.
  * * @author Sergio Carocca
  * @version 1.0
  */
@@ -30,41 +29,18 @@ import jakarta.servlet.http.HttpSession;
 public class CarritoController {
 
     @Autowired
-    private PlanService planService;
+    private CarritoService carritoService;
 
     /**
      * Agrega un plan al carrito de compras. Si el plan ya existe en la sesión,
      * incrementa su cantidad; de lo contrario, crea un nuevo registro.
      * * @param id Identificador único del plan a agregar.
-     * @param session Sesión HTTP para almacenar la lista de ítems.
+     * @param session Sesión HTTP donde reside el carrito.
      * @return Redirección a la vista detallada del carrito.
      */
     @GetMapping("/agregar/{id}")
     public String agregarAlCarrito(@PathVariable Long id, HttpSession session) {
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
-        if (carrito == null) {
-            carrito = new ArrayList<>();
-        }
-
-        Plan planDeseado = planService.buscarPorId(id);
-
-        if (planDeseado != null) {
-            boolean existe = false;
-            for (ItemCarrito item : carrito) {
-                if (item.getPlan().getId().equals(id)) {
-                    item.setCantidad(item.getCantidad() + 1);
-                    existe = true;
-                    break;
-                }
-            }
-
-            if (!existe) {
-                carrito.add(new ItemCarrito(planDeseado, 1));
-            }
-        }
-
-        session.setAttribute("carrito", carrito);
+        carritoService.agregar(session, id);
         return "redirect:/carrito/ver";
     }
 
@@ -76,21 +52,11 @@ public class CarritoController {
      */
     @GetMapping("/ver")
     public String verCarrito(Model model, HttpSession session) {
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
-        if (carrito == null) {
-            carrito = new ArrayList<>();
-        }
-        
-        int itemsCount = (carrito != null) ? carrito.size() : 0;
-        model.addAttribute("itemsCount", itemsCount);
-
-        BigDecimal total = carrito.stream()
-                .map(ItemCarrito::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<ItemCarrito> carrito = carritoService.items(carritoService.obtener(session));
 
+        model.addAttribute("itemsCount", carrito.size());
         model.addAttribute("carrito", carrito);
-        model.addAttribute("totalCarrito", total);
+        model.addAttribute("totalCarrito", carritoService.total(carrito));
 
         return "carrito-vista";
     }
@@ -103,14 +69,7 @@ public class CarritoController {
      */
     @GetMapping("/eliminar/{id}")
     public String eliminarDelCarrito(@PathVariable Long id, HttpSession session) {
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
-        
-        if (carrito != null) {
-            carrito.removeIf(item -> item.getPlan().getId().equals(id));
-            session.setAttribute("carrito", carrito);
-        }
-        
+        carritoService.quitar(session, id);
         return "redirect:/carrito/ver";
     }
 
@@ -121,7 +80,7 @@ public class CarritoController {
      */
     @GetMapping("/vaciar")
     public String vaciarCarrito(HttpSession session) {
-        session.removeAttribute("carrito");
+        carritoService.vaciar(session);
         return "redirect:/carrito/ver";
     }
 
@@ -134,20 +93,15 @@ public class CarritoController {
      */
     @GetMapping("/checkout")
     public String irACheckout(HttpSession session, Model model) {
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
+        List<ItemCarrito> carrito = carritoService.items(carritoService.obtener(session));
 
-        if (carrito == null || carrito.isEmpty()) {
+        if (carrito.isEmpty()) {
             return "redirect:/productos";
         }
 
-        BigDecimal total = carrito.stream()
-                .map(ItemCarrito::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         model.addAttribute("reserva", new Reserva()); 
         model.addAttribute("carrito", carrito); 
-        model.addAttribute("totalCarrito", total);
+        model.addAttribute("totalCarrito", carritoService.total(carrito));
         
         return "public/reserva-confirmacion-carrito"; 
     }
@@ -0,0 +1,73 @@
+package cl.sergiocarocca.cita_ideal_cl.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import cl.sergiocarocca.cita_ideal_cl.config.CachePaginasFilter;
+import cl.sergiocarocca.cita_ideal_cl.service.CacheDisponibilidad;
+import cl.sergiocarocca.cita_ideal_cl.service.CachePlanes;
+import cl.sergiocarocca.cita_ideal_cl.service.NotificadorFranjas;
+
+/**
+ * Controlador REST que expone contadores internos de rendimiento para el
+ * panel de administración (aciertos de caché, conexiones abiertas, etc.).
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/admin/metricas")
+public class MetricasController {
+
+    private final CacheDisponibilidad cacheDisponibilidad;
+    private final NotificadorFranjas notificadorFranjas;
+    private final CachePlanes cachePlanes;
+    private final CachePaginasFilter cachePaginas;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param cacheDisponibilidad Caché de consultas de disponibilidad.
+     * @param notificadorFranjas Difusor de eventos SSE de franjas.
+     * @param cachePlanes Caché del catálogo de planes.
+     * @param cachePaginas Caché de páginas públicas para visitantes anónimos.
+     */
+    public MetricasController(CacheDisponibilidad cacheDisponibilidad, NotificadorFranjas notificadorFranjas,
+                              CachePlanes cachePlanes, CachePaginasFilter cachePaginas) {
+        this.cacheDisponibilidad = cacheDisponibilidad;
+        this.notificadorFranjas = notificadorFranjas;
+        this.cachePlanes = cachePlanes;
+        this.cachePaginas = cachePaginas;
+    }
+
+    /**
+     * Contadores de la validación de disponibilidad.
+     * * @return Aciertos, fallos y peticiones coalescidas de la caché, más los suscriptores SSE.
+     */
+    @GetMapping("/disponibilidad")
+    public Map<String, Long> disponibilidad() {
+        Map<String, Long> datos = new LinkedHashMap<>(cacheDisponibilidad.estadisticas());
+        datos.put("suscriptoresSse", (long) notificadorFranjas.contarSuscriptores());
+        return datos;
+    }
+
+    /**
+     * Contadores de la caché del catálogo de planes.
+     * * @return Aciertos, fallos, invalidaciones y entradas en memoria.
+     */
+    @GetMapping("/catalogo")
+    public Map<String, Long> catalogo() {
+        return cachePlanes.estadisticas();
+    }
+
+    /**
+     * Contadores de la caché de páginas públicas.
+     * * @return Aciertos, fallos, respuestas 304 y páginas guardadas.
+     */
+    @GetMapping("/paginas")
+    public Map<String, Long> paginas() {
+        return cachePaginas.estadisticas();
+    }
+}
@@ -1,16 +1,25 @@
 package cl.sergiocarocca.cita_ideal_cl.controller;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
 import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.service.CarritoService;
+import cl.sergiocarocca.cita_ideal_cl.service.ReservaService;
 import jakarta.servlet.http.HttpSession;
 
 /**
@@ -25,13 +34,22 @@ import jakarta.servlet.http.HttpSession;
 @RequestMapping("/pago")
 public class PagoController {
 
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private CarritoService carritoService;
+
     /**
      * Paso 1: Muestra la pasarela de pago para la compra de un único plan.
+     * Antes de mostrarla retiene temporalmente la franja para que ningún otro cliente
+     * la tome mientras se completa el pago.
      * * @param reserva Objeto reserva con los datos del cliente recolectados previamente.
      * @param planId Identificador del plan seleccionado.
      * @param fechaSolo Fecha de la cita en formato String.
      * @param horaFija Bloque horario seleccionado para la cita.
      * @param model Objeto para transferir los datos de la reserva a la pasarela.
+     * @param flash Mensaje de error si la fecha no es válida, ya pasó o la franja ya no está disponible.
      * @return El nombre de la plantilla HTML para la pasarela de pago simulada.
      */
     @PostMapping("/procesar")
@@ -39,8 +57,27 @@ public class PagoController {
                                  @RequestParam Long planId,
                                  @RequestParam String fechaSolo,
                                  @RequestParam String horaFija,
-                                 Model model) {
+                                 Model model, RedirectAttributes flash) {
         
+        LocalDateTime fecha;
+        try {
+            fecha = fechaCita(fechaSolo, horaFija);
+        } catch (DateTimeParseException e) {
+            flash.addFlashAttribute("mensajeError", "La fecha u hora elegida no es válida.");
+            return "redirect:/reservas/nuevo/" + planId;
+        }
+        if (fecha.isBefore(LocalDateTime.now())) {
+            flash.addFlashAttribute("mensajeError", "La fecha y hora elegida ya pasó. Elige una futura.");
+            return "redirect:/reservas/nuevo/" + planId;
+        }
+
+        String token = UUID.randomUUID().toString();
+        if (!reservaService.retenerFranjas(List.of(planId), fecha, token)) {
+            flash.addFlashAttribute("mensajeError", "Lo sentimos, este horario ya está reservado para este plan.");
+            return "redirect:/reservas/nuevo/" + planId;
+        }
+
+        model.addAttribute("tokenRetencion", token);
         model.addAttribute("reserva", reserva);
         model.addAttribute("planId", planId);
         model.addAttribute("fechaSolo", fechaSolo);
@@ -56,6 +93,7 @@ public class PagoController {
      * @param planId Identificador del plan.
      * @param fechaSolo Fecha de la cita.
      * @param horaFija Hora de la cita.
+     * @param tokenRetencion Token de la retención de la franja obtenida en el paso 1.
      * @param model Objeto para pasar los datos al formulario invisible del procesando.
      * @return El nombre de la plantilla HTML con la animación de carga.
      */
@@ -64,7 +102,9 @@ public class PagoController {
                                 @RequestParam Long planId,
                                 @RequestParam String fechaSolo,
                                 @RequestParam String horaFija,
+                                @RequestParam(required = false) String tokenRetencion,
                                 Model model) {
+        model.addAttribute("tokenRetencion", tokenRetencion);
         model.addAttribute("reserva", reserva);
         model.addAttribute("planId", planId);
         model.addAttribute("fechaSolo", fechaSolo);
@@ -75,26 +115,65 @@ public class PagoController {
 
     /**
      * Paso 1 (Carrito): Muestra la pasarela para compras múltiples desde el carrito.
+     * Cada plan trae su propia fecha y hora (listas paralelas); se guardan en el carrito
+     * de la sesión, que es de donde las toma la confirmación final.
      * * @param reserva Objeto reserva con la información del contacto.
-     * @param fechaSolo Fecha seleccionada para la atención de los servicios.
-     * @param horaFija Hora seleccionada para el inicio de los servicios.
+     * @param itemPlanId Planes del carrito, en el orden del formulario.
+     * @param itemFecha Fecha elegida para cada plan (YYYY-MM-DD).
+     * @param itemHora Hora elegida para cada plan (HH:mm).
      * @param session Sesión HTTP para recuperar los ítems actuales del carrito.
      * @param model Objeto para enviar la información y la bandera de carrito a la vista.
+     * @param flash Mensaje de error si falta una fecha, alguna ya pasó o alguna franja ya no está disponible.
      * @return El nombre de la plantilla HTML para la pasarela de pago.
      */
     @PostMapping("/procesar-carrito")
     public String mostrarPasarelaCarrito(@ModelAttribute Reserva reserva, 
-                                         @RequestParam String fechaSolo,
-                                         @RequestParam String horaFija,
+                                         @RequestParam List<Long> itemPlanId,
+                                         @RequestParam List<String> itemFecha,
+                                         @RequestParam List<String> itemHora,
                                          HttpSession session,
-                                         Model model) {
-        
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
+                                         Model model, RedirectAttributes flash) {
         
+        for (int i = 0; i < itemPlanId.size() && i < itemFecha.size() && i < itemHora.size(); i++) {
+            if (itemFecha.get(i).isBlank() || itemHora.get(i).isBlank()) {
+                continue;
+            }
+            LocalDateTime fecha;
+            try {
+                fecha = fechaCita(itemFecha.get(i), itemHora.get(i));
+            } catch (DateTimeParseException e) {
+                flash.addFlashAttribute("mensajeError", "Una de las fechas u horas elegidas no es válida.");
+                return "redirect:/carrito/checkout";
+            }
+            if (!carritoService.asignarFecha(session, itemPlanId.get(i), fecha)) {
+                flash.addFlashAttribute("mensajeError", "Una de las fechas elegidas ya pasó o el servicio ya no está en tu carrito.");
+                return "redirect:/carrito/checkout";
+            }
+        }
+        List<ItemCarrito> carrito = carritoService.items(carritoService.obtener(session));
+        if (carrito.isEmpty()) {
+            return "redirect:/productos";
+        }
+
+        List<FranjaPlan> franjas = new ArrayList<>(carrito.size());
+        LocalDateTime ahora = LocalDateTime.now();
+        for (ItemCarrito item : carrito) {
+            if (item.getFechaCita() == null || item.getFechaCita().isBefore(ahora)) {
+                flash.addFlashAttribute("mensajeError", "Elige una fecha y hora futura para '" + item.getPlan().getNombre() + "'.");
+                return "redirect:/carrito/checkout";
+            }
+            franjas.add(new FranjaPlan(item.getPlan().getId(), item.getFechaCita()));
+        }
+
+        // Retenemos la franja de cada plan del carrito durante el pago
+        String token = UUID.randomUUID().toString();
+        if (!reservaService.retenerFranjas(franjas, token)) {
+            flash.addFlashAttribute("mensajeError", "Lo sentimos, uno de los servicios ya no está disponible para la fecha y hora elegida.");
+            return "redirect:/carrito/checkout";
+        }
+
+        model.addAttribute("tokenRetencion", token);
         model.addAttribute("reserva", reserva);
-        model.addAttribute("fechaSolo", fechaSolo);
-        model.addAttribute("horaFija", horaFija);
         model.addAttribute("esCarrito", true); 
         
         return "public/pasarela-simulada";
@@ -102,23 +181,29 @@ public class PagoController {
 
     /**
      * Paso 2 (Carrito): Muestra la pantalla de procesamiento para compras del carrito.
+     * Las fechas de cada plan viajan en el carrito de la sesión.
      * * @param reserva Objeto reserva final.
-     * @param fechaSolo Fecha de la cita.
-     * @param horaFija Hora de la cita.
+     * @param tokenRetencion Token de la retención de las franjas obtenida en el paso 1.
      * @param model Objeto para transferir los datos al spinner de procesamiento.
      * @return El nombre de la plantilla HTML con la animación de carga para carrito.
      */
     @PostMapping("/confirmar-final-carrito")
     public String procesarEsperaCarrito(@ModelAttribute Reserva reserva, 
-                                        @RequestParam String fechaSolo,
-                                        @RequestParam String horaFija,
+                                        @RequestParam(required = false) String tokenRetencion,
                                         Model model) {
         
+        model.addAttribute("tokenRetencion", tokenRetencion);
         model.addAttribute("reserva", reserva);
-        model.addAttribute("fechaSolo", fechaSolo);
-        model.addAttribute("horaFija", horaFija);
         model.addAttribute("esCarrito", true); 
         
         return "public/pago-procesando"; 
     }
-}
\ No newline at end of file
+
+    /**
+     * Une los inputs de fecha (YYYY-MM-DD) y hora (HH:mm) en la fecha de la cita.
+     * @throws DateTimeParseException Si alguno de los dos no tiene el formato esperado.
+     */
+    private static LocalDateTime fechaCita(String fechaSolo, String horaFija) {
+        return LocalDateTime.parse(fechaSolo + "T" + horaFija).withSecond(0).withNano(0);
+    }
+}
@@ -1,26 +1,58 @@
 package cl.sergiocarocca.cita_ideal_cl.controller;
 
-import java.util.List;
+import java.time.Duration;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
-import cl.sergiocarocca.cita_ideal_cl.repository.PlanRepository;
+import cl.sergiocarocca.cita_ideal_cl.dto.CatalogoSerializado;
+import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
 
+/**
+ * API pública del catálogo de planes activos para los frontends externos.
+ * Responde con JSON ya serializado, un ETag fuerte y cabeceras de caché; cuando el
+ * cliente envía {@code If-None-Match} con el ETag vigente se responde 304 sin cuerpo
+ * y sin consultar la base de datos.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
 @RestController
 @RequestMapping("/api/planes")
-@CrossOrigin(origins = "*") // Para que tu frontend pueda consultar sin bloqueos
+@CrossOrigin(origins = "*", exposedHeaders = "ETag") // Para que tu frontend pueda consultar sin bloqueos
 public class PlanController {
 
-    @Autowired
-    private PlanRepository planRepository;
+    private final PlanService planService;
+    private final CacheControl cacheControl;
 
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param planService Servicio con el catálogo serializado.
+     * @param maxAge Tiempo que el cliente puede reutilizar la respuesta sin revalidarla.
+     */
+    public PlanController(PlanService planService,
+                          @Value("${citaideal.catalogo.api-max-age:60s}") Duration maxAge) {
+        this.planService = planService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
+    }
+
+    /**
+     * Lista los planes activos. Si el ETag de {@code If-None-Match} coincide, Spring
+     * responde 304 a partir del ETag de esta respuesta.
+     * * @return JSON de los planes activos con ETag y Cache-Control.
+     */
     @GetMapping
-    public List<Plan> listarPlanes() {
-        return planRepository.findAll();
+    public ResponseEntity<byte[]> listarPlanes() {
+        CatalogoSerializado catalogo = planService.catalogoSerializado();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(catalogo.etag())
+                .cacheControl(cacheControl)
+                .body(catalogo.json());
     }
-}
\ No newline at end of file
+}
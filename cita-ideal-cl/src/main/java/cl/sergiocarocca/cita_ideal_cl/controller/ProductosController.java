@@ -6,8 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
 import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
 
 /**
@@ -24,18 +25,20 @@ public class ProductosController {
     private PlanService planService;
 
     /**
-     * Recupera y filtra el listado de planes de servicios para su visualización pública.
-     * Utiliza un stream para excluir aquellos planes que han sido desactivados
-     * por la administración.
-     * * @param model Objeto para inyectar la lista de planes activos en la vista.
+     * Recupera el listado de planes activos para su visualización pública.
+     * Los planes desactivados por la administración no se incluyen; la lista
+     * proviene de la caché del catálogo. Si se indica un texto de búsqueda, muestra
+     * solo los planes que lo contienen, ordenados por relevancia.
+     * * @param q Palabras a buscar en el nombre o la descripción (opcional).
+     * @param model Objeto para inyectar la lista de planes activos en la vista.
      * @return El nombre de la plantilla HTML "productos" para renderizar el catálogo.
      */
     @GetMapping("/productos")
-    public String verPaginaDeProductos(Model model) {
-        // 1. Obtenemos los datos del servicio y filtramos por estado activo
-        List<Plan> listaPlanes = planService.listarTodos().stream()
-                .filter(Plan::isActivo)
-                .toList();
+    public String verPaginaDeProductos(@RequestParam(required = false) String q, Model model) {
+        // 1. Obtenemos los planes activos desde el servicio (o los que coinciden con la búsqueda)
+        boolean hayBusqueda = q != null && !q.isBlank();
+        List<PlanResumen> listaPlanes = hayBusqueda ? planService.buscar(q) : planService.listarPlanesActivos();
+        model.addAttribute("busqueda", hayBusqueda ? q.strip() : null);
         
         // 2. Pasamos la lista al HTML usando el "model"
         // El atributo "listadoDePlanes" es el que debe ser recorrido en Thymeleaf
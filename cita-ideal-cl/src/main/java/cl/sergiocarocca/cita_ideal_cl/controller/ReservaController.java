@@ -3,22 +3,32 @@ package cl.sergiocarocca.cita_ideal_cl.controller;
 import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
 import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.service.CarritoService;
 import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
 import cl.sergiocarocca.cita_ideal_cl.service.ReservaService;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import cl.sergiocarocca.cita_ideal_cl.service.IndiceDisponibilidad;
+import cl.sergiocarocca.cita_ideal_cl.service.NotificadorFranjas;
+
 /**
  * Controlador principal para la gestión de reservas de servicios.
  * Administra el ciclo de vida de una reserva, desde la selección de horarios
@@ -37,6 +47,12 @@ public class ReservaController {
     @Autowired
     private PlanService planService;
 
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private NotificadorFranjas notificadorFranjas;
+
     /**
      * Prepara el formulario de reserva para un servicio específico.
      * Valida la existencia del plan antes de proceder para asegurar la integridad de los datos.
@@ -71,16 +87,28 @@ public class ReservaController {
      * @param planId Identificador del plan (enviado de forma oculta o vía parámetro).
      * @param fechaSolo Cadena de texto con la fecha (YYYY-MM-DD).
      * @param horaFija Cadena de texto con el bloque horario (HH:mm).
+     * @param tokenRetencion Token de la retención de la franja creada al entrar a la pasarela.
      * @param model Objeto para pasar los detalles de éxito a la vista final.
      * @param flash Mensajes de error en caso de fallo en el parseo o persistencia.
-     * @return Vista de éxito de reserva o redirección al catálogo si ocurre una excepción.
+     * @return Vista de éxito de reserva, redirección al formulario si el horario no está
+     *         disponible o al catálogo si el plan no existe.
      */
     @PostMapping("/guardar")
     public String guardarReserva(@ModelAttribute Reserva reserva, 
+                                @RequestParam("planId") Long planId,
                                 @RequestParam("fechaSolo") String fechaSolo,
                                 @RequestParam("horaFija") String horaFija,
+                                @RequestParam(value = "tokenRetencion", required = false) String tokenRetencion,
                                 RedirectAttributes flash, Model model) {
+        Plan plan = planService.buscarPorId(planId);
+        if (plan == null) {
+            flash.addFlashAttribute("mensajeError", "El plan seleccionado no existe.");
+            return "redirect:/productos";
+        }
+
         try {
+            reserva.setPlan(plan);
+
             // 1. Unimos fecha y hora
             String fechaCompleta = fechaSolo + "T" + horaFija; 
             
@@ -92,7 +120,7 @@ public class ReservaController {
             reserva.setFechaCita(fechaExacta);
             
             // 3. Llamamos al servicio (que hará el COUNT en el repositorio)
-            reservaService.crearReserva(reserva);
+            reservaService.crearReserva(reserva, tokenRetencion);
             
             model.addAttribute("reserva", reserva);
             return "public/reserva-exito";
@@ -100,17 +128,17 @@ public class ReservaController {
         } catch (RuntimeException e) {
             // Si el servicio lanza la excepción porque el COUNT fue > 0
             flash.addFlashAttribute("mensajeError", "Lo sentimos, este horario ya está reservado para este plan.");
-            return "redirect:/reservas/nuevo/" + reserva.getPlan().getId();
+            return "redirect:/reservas/nuevo/" + planId;
         }
     }
 
     /**
-     * Procesa la confirmación masiva de todos los ítems contenidos en el carrito.
+     * Procesa la confirmación masiva de todos los ítems contenidos en el carrito,
+     * cada uno en la fecha y hora que el cliente eligió para él.
      * Al finalizar con éxito, limpia el carrito de la sesión HTTP.
-     * * @param session Sesión actual para obtener la lista de {@link ItemCarrito}.
+     * * @param session Sesión actual donde reside el carrito.
      * @param datosCliente Objeto reserva que contiene los datos de contacto unificados.
-     * @param fechaSolo Fecha seleccionada para todos los servicios.
-     * @param horaFija Hora de inicio seleccionada.
+     * @param tokenRetencion Token de la retención de las franjas creada al entrar a la pasarela.
      * @param model Contenedor para la lista de reservas realizadas con éxito.
      * @param flash Mensajes de error para redirección al checkout en caso de fallo.
      * @return Vista de éxito para múltiples reservas.
@@ -118,21 +146,19 @@ public class ReservaController {
     @PostMapping("/confirmar-todo")
     public String confirmarTodo(HttpSession session, 
                                 @ModelAttribute Reserva datosCliente,
-                                @RequestParam("fechaSolo") String fechaSolo, 
-                                @RequestParam("horaFija") String horaFija,    
+                                @RequestParam(value = "tokenRetencion", required = false) String tokenRetencion,
                                 Model model,
                                 RedirectAttributes flash) {
-        @SuppressWarnings("unchecked")
-        List<ItemCarrito> carrito = (List<ItemCarrito>) session.getAttribute("carrito");
+        List<ItemCarrito> carrito = carritoService.items(carritoService.obtener(session));
+        if (carrito.isEmpty()) {
+            return "redirect:/productos";
+        }
         
         try {
-            String fechaCompleta = fechaSolo + "T" + horaFija;
-            LocalDateTime fecha = LocalDateTime.parse(fechaCompleta);
-            
             // Delegación de lógica de negocio compleja al servicio
-            List<Reserva> reservasRealizadas = reservaService.guardarReservaMultiple(carrito, fecha, datosCliente);
+            List<Reserva> reservasRealizadas = reservaService.guardarReservaMultiple(carrito, datosCliente, tokenRetencion);
             
-            session.removeAttribute("carrito");
+            carritoService.vaciar(session);
             
             model.addAttribute("reservas", reservasRealizadas);
             model.addAttribute("nombreCliente", datosCliente.getNombreCliente());
@@ -146,15 +172,12 @@ public class ReservaController {
     }
 
     /**
-     * Lista todas las reservas existentes para el panel administrativo.
-     * * @param model Objeto para pasar la colección completa de reservas a la vista.
-     * @return Vista administrativa con la tabla de gestión de reservas.
+     * Ruta antigua del listado administrativo; el listado paginado vive en /admin/reservas.
+     * * @return Redirección al dashboard de reservas.
      */
     @GetMapping("/admin/listar")
-    public String listarReservas(Model model) {
-        List<Reserva> lista = reservaService.listarTodas();
-        model.addAttribute("reservas", lista);
-        return "admin/dashboard-reservas";
+    public String listarReservas() {
+        return "redirect:/admin/reservas";
     }
 
     /**
@@ -171,8 +194,16 @@ public class ReservaController {
         } catch (Exception e) {
             flash.addFlashAttribute("mensajeError", "Error al intentar eliminar: " + e.getMessage());
         }
-        return "redirect:/reservas/admin/listar";
+        return "redirect:/admin/reservas";
     }
+    /**
+     * Verifica si un horario puntual sigue disponible para un plan.
+     * Las consultas idénticas y simultáneas comparten una única búsqueda.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha en formato YYYY-MM-DD.
+     * @param hora Hora en formato HH:mm.
+     * @return JSON con la propiedad "disponible".
+     */
     @GetMapping("/validar-disponibilidad")
     @ResponseBody
     public ResponseEntity<Map<String, Boolean>> validarDisponibilidad(
@@ -188,6 +219,45 @@ public class ReservaController {
         
         Map<String, Boolean> respuesta = new HashMap<>();
         respuesta.put("disponible", !ocupado);
+        // La respuesta puede quedar obsoleta en cualquier momento: solo se permite reutilizarla un segundo
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(1)).cachePrivate().mustRevalidate())
+                .body(respuesta);
+    }
+
+    /**
+     * Entrega de una sola vez los horarios ocupados de un plan durante un mes.
+     * Cada día se codifica como un número cuyo bit {@code i} indica que la franja
+     * que comienza en el minuto {@code i * minutosPorFranja} ya está tomada.
+     * * @param planId Identificador del plan.
+     * @param mes Mes consultado en formato YYYY-MM.
+     * @return JSON con el mes, el tamaño de franja y el arreglo de días.
+     */
+    @GetMapping("/disponibilidad-mes")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> disponibilidadMensual(
+            @RequestParam Long planId,
+            @RequestParam String mes) {
+
+        YearMonth periodo = YearMonth.parse(mes);
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("planId", planId);
+        respuesta.put("mes", periodo.toString());
+        respuesta.put("minutosPorFranja", IndiceDisponibilidad.MINUTOS_POR_FRANJA);
+        respuesta.put("dias", reservaService.obtenerOcupacionMensual(planId, periodo));
         return ResponseEntity.ok(respuesta);
     }
-}
\ No newline at end of file
+
+    /**
+     * Abre un flujo Server-Sent Events con los cambios de ocupación de un plan.
+     * Cada evento "franja" informa la fecha y hora afectada y si quedó ocupada o libre.
+     * * @param planId Identificador del plan que muestra el formulario.
+     * @return Emisor SSE que permanece abierto mientras el formulario esté visible.
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter eventosDisponibilidad(@RequestParam Long planId) {
+        return notificadorFranjas.suscribir(planId);
+    }
+}
@@ -21,7 +21,7 @@ public class VistasController {
 
     /**
      * Procesa la petición a la raíz de la aplicación (Landing Page).
-     * Recupera el listado de todos los planes disponibles para mostrarlos
+     * Recupera el listado de los planes activos para mostrarlos
      * en la sección de servicios del index.
      * * @param model Objeto inyectado por Spring para pasar la colección de planes a la vista.
      * @return El nombre de la plantilla HTML "index" para la página de inicio.
@@ -29,7 +29,7 @@ public class VistasController {
     @GetMapping("/")
     public String index(Model model) { 
         // Inyectamos la lista de planes para que el carousel o grilla del index los muestre
-        model.addAttribute("planes", planService.listarTodos());
+        model.addAttribute("planes", planService.listarPlanesActivos());
         return "index";
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDateTime;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+
+/**
+ * Reserva afectada por un cambio de estado masivo, tal como la devuelve el UPDATE.
+ * Contiene lo necesario para actualizar estadísticas y disponibilidad sin volver a
+ * cargar la entidad.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param id Identificador de la reserva.
+ * @param planId Identificador del plan reservado.
+ * @param fechaCita Fecha y hora de la cita.
+ * @param anterior Estado que tenía antes del cambio.
+ * @param nuevo Estado que tiene ahora.
+ * @param precio Precio base del plan.
+ */
+public record CambioEstadoReserva(
+        Long id,
+        Long planId,
+        LocalDateTime fechaCita,
+        EstadoReserva anterior,
+        EstadoReserva nuevo,
+        Dinero precio) {
+}
@@ -0,0 +1,12 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+/**
+ * Catálogo público de planes ya convertido a JSON, listo para escribirse en la respuesta
+ * de {@code /api/planes} sin volver a serializarlo en cada petición.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param json Lista de {@link PlanPublico} en JSON (UTF-8); no debe modificarse.
+ * @param etag ETag fuerte (entre comillas) derivado solo del contenido del JSON.
+ */
+public record CatalogoSerializado(byte[] json, String etag) {
+}
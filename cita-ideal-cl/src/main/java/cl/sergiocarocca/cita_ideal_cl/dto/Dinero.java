@@ -0,0 +1,85 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Monto en pesos chilenos (CLP), que no tienen decimales: se guarda como un {@code long}
+ * de pesos y las sumas y multiplicaciones son aritmética entera, sin crear un
+ * {@link BigDecimal} por operación. La conversión desde y hacia {@link BigDecimal} solo
+ * ocurre al leer o escribir la base de datos, y es exacta: un monto con centavos es un error.
+ * En JSON se escribe como un número y {@link #toString()} lo formatea como {@code $50.000}.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param pesos Monto en pesos.
+ */
+public record Dinero(@JsonValue long pesos) implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    /**
+     * Convierte un monto de la base de datos sin redondear.
+     * * @param monto Monto en pesos (ej: la columna NUMERIC precio_base).
+     * @return Monto equivalente, o null si el monto es null.
+     * @throws ArithmeticException Si el monto tiene centavos o no cabe en un {@code long}.
+     */
+    public static Dinero de(BigDecimal monto) {
+        return monto == null ? null : new Dinero(monto.longValueExact());
+    }
+
+    /**
+     * Suma dos montos.
+     * * @param otro Monto a sumar.
+     * @return Suma de ambos.
+     * @throws ArithmeticException Si el resultado se desborda.
+     */
+    public Dinero mas(Dinero otro) {
+        return new Dinero(Math.addExact(pesos, otro.pesos));
+    }
+
+    /**
+     * Multiplica el monto por una cantidad de unidades.
+     * * @param cantidad Unidades (puede ser negativa, ej: para revertir ingresos).
+     * @return Monto por la cantidad.
+     * @throws ArithmeticException Si el resultado se desborda.
+     */
+    public Dinero por(long cantidad) {
+        return new Dinero(Math.multiplyExact(pesos, cantidad));
+    }
+
+    /**
+     * Convierte el monto para guardarlo en una columna NUMERIC.
+     * * @return Monto como {@link BigDecimal} sin decimales.
+     */
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(pesos);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(pesos, otro.pesos);
+    }
+
+    /**
+     * Formato chileno con separador de miles: {@code $1.250.000} o {@code -$5.000}.
+     */
+    @Override
+    public String toString() {
+        String digitos = Long.toString(Math.abs(pesos));
+        if (pesos == Long.MIN_VALUE) {
+            digitos = digitos.substring(1);
+        }
+        StringBuilder texto = new StringBuilder(digitos.length() + digitos.length() / 3 + 2);
+        if (pesos < 0) {
+            texto.append('-');
+        }
+        texto.append('$');
+        int primerGrupo = digitos.length() % 3 == 0 ? 3 : digitos.length() % 3;
+        texto.append(digitos, 0, primerGrupo);
+        for (int i = primerGrupo; i < digitos.length(); i += 3) {
+            texto.append('.').append(digitos, i, i + 3);
+        }
+        return texto.toString();
+    }
+}
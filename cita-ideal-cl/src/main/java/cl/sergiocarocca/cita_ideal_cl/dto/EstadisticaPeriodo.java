@@ -0,0 +1,32 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Fila del resumen de estadísticas: reservas e ingresos de un plan en un período
+ * (día, semana o mes, identificado por su primer día).
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param periodo Primer día del período.
+ * @param planId Identificador del plan.
+ * @param plan Nombre del plan.
+ * @param pendientes Reservas pendientes de confirmación.
+ * @param confirmadas Reservas confirmadas.
+ * @param canceladas Reservas canceladas.
+ * @param ingresos Suma del precio de las reservas confirmadas.
+ */
+public record EstadisticaPeriodo(LocalDate periodo, Long planId, String plan,
+                                 long pendientes, long confirmadas, long canceladas,
+                                 Dinero ingresos) {
+
+    /** Total de reservas del período, incluidas las canceladas. */
+    public long total() {
+        return pendientes + confirmadas + canceladas;
+    }
+
+    /** Porcentaje de reservas confirmadas sobre el total (0 si no hubo reservas). */
+    public double tasaConfirmacion() {
+        long total = total();
+        return total == 0 ? 0 : confirmadas * 100.0 / total;
+    }
+}
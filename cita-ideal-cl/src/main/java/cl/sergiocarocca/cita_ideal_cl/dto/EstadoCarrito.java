@@ -0,0 +1,30 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado del carrito que devuelve la API {@code /api/carrito} después de cada acción,
+ * para que la página se actualice sin redirigir ni volver a renderizar la plantilla.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param items Líneas del carrito en el orden en que se agregaron.
+ * @param itemsCount Cantidad de planes distintos (el número del ícono del carrito).
+ * @param total Total a pagar.
+ */
+public record EstadoCarrito(List<Linea> items, int itemsCount, Dinero total) {
+
+    /**
+     * Una línea del carrito.
+     * * @param planId Identificador del plan.
+     * @param nombre Nombre comercial del plan.
+     * @param precio Precio unitario.
+     * @param cantidad Unidades del plan.
+     * @param subtotal Precio por cantidad.
+     * @param fechaCita Fecha y hora elegida para este plan (null si aún no se elige).
+     * @param disponible Si la fecha elegida sigue libre (null si aún no se elige).
+     */
+    public record Linea(Long planId, String nombre, Dinero precio, int cantidad, Dinero subtotal,
+                        LocalDateTime fechaCita, Boolean disponible) {
+    }
+}
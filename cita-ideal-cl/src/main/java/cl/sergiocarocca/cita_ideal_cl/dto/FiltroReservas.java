@@ -0,0 +1,24 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+
+/**
+ * Filtros opcionales del listado administrativo de reservas.
+ * Un campo nulo (o vacío en el formulario) significa "sin filtro".
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param estado Estado de la reserva.
+ * @param planId Identificador del plan reservado.
+ * @param desde Primer día (inclusive) de la fecha de la cita.
+ * @param hasta Último día (inclusive) de la fecha de la cita.
+ */
+public record FiltroReservas(
+        EstadoReserva estado,
+        Long planId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+}
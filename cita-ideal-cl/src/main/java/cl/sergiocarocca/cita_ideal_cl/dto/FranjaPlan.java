@@ -0,0 +1,14 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Par (plan, fecha y hora) que identifica un horario reservable. Cada ítem del carrito
+ * tiene su propia franja, y la disponibilidad de todas se valida en una sola consulta.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param planId Identificador del plan.
+ * @param fecha Fecha y hora de la cita.
+ */
+public record FranjaPlan(Long planId, LocalDateTime fecha) {
+}
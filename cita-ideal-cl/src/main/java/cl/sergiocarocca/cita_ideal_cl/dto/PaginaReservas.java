@@ -0,0 +1,23 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+
+/**
+ * Página del listado de reservas paginado por clave (fechaCita, id).
+ * En lugar de un número de página, la siguiente se pide "después de" la última
+ * reserva mostrada, de modo que cada página cuesta lo mismo sin importar su posición.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param reservas Reservas de la página, con su plan ya cargado.
+ * @param siguienteFecha Fecha de la última reserva, o null si no hay más páginas.
+ * @param siguienteId Id de la última reserva, o null si no hay más páginas.
+ */
+public record PaginaReservas(List<Reserva> reservas, LocalDateTime siguienteFecha, Long siguienteId) {
+
+    public boolean haySiguiente() {
+        return siguienteId != null;
+    }
+}
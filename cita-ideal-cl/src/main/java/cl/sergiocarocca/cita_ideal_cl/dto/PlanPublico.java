@@ -0,0 +1,18 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Plan tal como lo entrega {@code /api/planes}. A diferencia de {@link PlanResumen},
+ * que es solo para las tarjetas HTML, lleva la descripción completa: los clientes de la
+ * API no tienen otra forma de obtenerla.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param id Identificador del plan.
+ * @param nombre Nombre comercial.
+ * @param precioBase Costo base del servicio.
+ * @param imagenUrl Nombre del archivo de imagen (puede ser null).
+ * @param descripcion Descripción completa del plan.
+ */
+public record PlanPublico(Long id, String nombre, BigDecimal precioBase, String imagenUrl, String descripcion) {
+}
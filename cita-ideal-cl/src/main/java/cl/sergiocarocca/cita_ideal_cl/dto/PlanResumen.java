@@ -0,0 +1,56 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Vista reducida de un plan para los listados del catálogo público.
+ * Trae solo las columnas que muestran las tarjetas y un extracto de la descripción,
+ * en lugar de la entidad completa con su descripción TEXT.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param id Identificador del plan.
+ * @param nombre Nombre comercial.
+ * @param precioBase Costo base del servicio.
+ * @param imagenUrl Nombre del archivo de imagen (puede ser null).
+ * @param descripcion Extracto de la descripción, cortado en un límite de palabra y
+ *        terminado en "…" cuando el texto original es más largo.
+ */
+public record PlanResumen(Long id, String nombre, BigDecimal precioBase, String imagenUrl, String descripcion) {
+
+    /**
+     * Caracteres de la descripción que se muestran en el extracto. Las consultas deben
+     * traer uno más para saber si el texto continúa.
+     */
+    public static final int LARGO_DESCRIPCION = 160;
+
+    /**
+     * Recorta la descripción recibida de la consulta al largo del extracto.
+     */
+    public PlanResumen {
+        descripcion = extracto(descripcion);
+    }
+
+    /**
+     * Corta un texto en el último espacio dentro de {@link #LARGO_DESCRIPCION} caracteres
+     * y le agrega "…". Si no hay espacios (una sola palabra larga) corta en el límite.
+     * * @param texto Descripción completa o sus primeros caracteres (puede ser null).
+     * @return El mismo texto si cabe en el extracto; el texto recortado en caso contrario.
+     */
+    public static String extracto(String texto) {
+        if (texto == null || texto.length() <= LARGO_DESCRIPCION) {
+            return texto;
+        }
+        int corte = LARGO_DESCRIPCION;
+        while (corte > 0 && !Character.isWhitespace(texto.charAt(corte))) {
+            corte--;
+        }
+        if (corte == 0) {
+            corte = LARGO_DESCRIPCION;
+        }
+        String recortado = texto.substring(0, corte).stripTrailing();
+        while (!recortado.isEmpty() && ",;:.-".indexOf(recortado.charAt(recortado.length() - 1)) >= 0) {
+            recortado = recortado.substring(0, recortado.length() - 1);
+        }
+        return recortado + "…";
+    }
+}
@@ -0,0 +1,23 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva que debe recibir un recordatorio, con los datos necesarios para redactar el correo.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param reservaId Identificador de la reserva.
+ * @param fechaCita Fecha y hora de la cita.
+ * @param nombreCliente Nombre del cliente.
+ * @param emailCliente Correo de destino.
+ * @param codigoSeguimiento Código de seguimiento de la reserva.
+ * @param plan Nombre de la experiencia reservada.
+ */
+public record RecordatorioPendiente(
+        Long reservaId,
+        LocalDateTime fechaCita,
+        String nombreCliente,
+        String emailCliente,
+        String codigoSeguimiento,
+        String plan) {
+}
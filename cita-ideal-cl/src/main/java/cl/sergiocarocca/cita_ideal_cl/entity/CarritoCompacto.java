@@ -0,0 +1,223 @@
+package cl.sergiocarocca.cita_ideal_cl.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Carrito de compras guardado en la sesión HTTP: solo los ids de los planes, sus
+ * cantidades y la franja (fecha y hora) elegida para cada uno, en arreglos primitivos
+ * en orden de inserción. Los datos del plan
+ * (nombre, precio, imagen) no se guardan; se obtienen del catálogo al mostrar el carrito,
+ * por lo que siempre reflejan el precio vigente.
+ * Al serializarse (replicación o persistencia de la sesión) se escribe en formato
+ * varint: un carrito típico ocupa unos pocos bytes.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+public class CarritoCompacto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Máximo de unidades de un mismo plan. */
+    public static final int MAX_CANTIDAD = 99;
+
+    private transient long[] planIds = new long[4];
+    private transient int[] cantidades = new int[4];
+    /** Franja de cada plan en minutos desde 1970-01-01T00:00 (hora local); 0 = sin elegir. */
+    private transient long[] franjas = new long[4];
+    private transient int tamano;
+
+    /**
+     * Suma unidades de un plan; si no estaba en el carrito lo agrega al final.
+     * * @param planId Identificador del plan.
+     * @param cantidad Unidades a sumar (mayor que 0).
+     */
+    public synchronized void agregar(long planId, int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+        int i = indice(planId);
+        if (i >= 0) {
+            cantidades[i] = Math.min(MAX_CANTIDAD, cantidades[i] + cantidad);
+            return;
+        }
+        if (tamano == planIds.length) {
+            planIds = Arrays.copyOf(planIds, tamano * 2);
+            cantidades = Arrays.copyOf(cantidades, tamano * 2);
+            franjas = Arrays.copyOf(franjas, tamano * 2);
+        }
+        planIds[tamano] = planId;
+        cantidades[tamano] = Math.min(MAX_CANTIDAD, cantidad);
+        franjas[tamano] = 0;
+        tamano++;
+    }
+
+    /**
+     * Quita un plan del carrito, manteniendo el orden del resto.
+     * * @param planId Identificador del plan.
+     * @return true si el plan estaba en el carrito.
+     */
+    public synchronized boolean quitar(long planId) {
+        int i = indice(planId);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(planIds, i + 1, planIds, i, tamano - i - 1);
+        System.arraycopy(cantidades, i + 1, cantidades, i, tamano - i - 1);
+        System.arraycopy(franjas, i + 1, franjas, i, tamano - i - 1);
+        tamano--;
+        return true;
+    }
+
+    /**
+     * Asigna la fecha y hora de la cita de un plan del carrito.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita (se descartan segundos), o null para quitarla.
+     * @return false si el plan no está en el carrito.
+     */
+    public synchronized boolean asignarFranja(long planId, LocalDateTime fecha) {
+        int i = indice(planId);
+        if (i < 0) {
+            return false;
+        }
+        franjas[i] = fecha == null ? 0 : fecha.toEpochSecond(ZoneOffset.UTC) / 60;
+        return true;
+    }
+
+    /**
+     * Fecha y hora elegida para un plan.
+     * * @param planId Identificador del plan.
+     * @return Fecha de la cita, o null si el plan no está o aún no tiene fecha.
+     */
+    public synchronized LocalDateTime franja(long planId) {
+        int i = indice(planId);
+        return i < 0 || franjas[i] == 0 ? null : LocalDateTime.ofEpochSecond(franjas[i] * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Unidades de un plan en el carrito.
+     * * @param planId Identificador del plan.
+     * @return Cantidad, o 0 si el plan no está.
+     */
+    public synchronized int cantidad(long planId) {
+        int i = indice(planId);
+        return i >= 0 ? cantidades[i] : 0;
+    }
+
+    /**
+     * Ids de los planes del carrito en orden de inserción.
+     * * @return Lista nueva con los ids.
+     */
+    public synchronized List<Long> planIds() {
+        List<Long> ids = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            ids.add(planIds[i]);
+        }
+        return ids;
+    }
+
+    public synchronized int tamano() {
+        return tamano;
+    }
+
+    public synchronized boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    /**
+     * Codifica el carrito: cantidad de planes, cada (id, cantidad) y al final la franja
+     * de cada plan, todo en varint. Las franjas van al final, y solo si se eligió alguna,
+     * para que los carritos guardados antes de existir sigan siendo legibles.
+     * * @return Bytes del carrito.
+     */
+    public synchronized byte[] serializar() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(1 + tamano * 8);
+        escribirVarint(salida, tamano);
+        boolean conFranjas = false;
+        for (int i = 0; i < tamano; i++) {
+            escribirVarint(salida, planIds[i]);
+            escribirVarint(salida, cantidades[i]);
+            conFranjas |= franjas[i] != 0;
+        }
+        for (int i = 0; conFranjas && i < tamano; i++) {
+            escribirVarint(salida, franjas[i]);
+        }
+        return salida.toByteArray();
+    }
+
+    /**
+     * Reconstruye un carrito a partir de {@link #serializar()}.
+     * * @param bytes Bytes del carrito.
+     * @return Carrito equivalente al original.
+     */
+    public static CarritoCompacto deserializar(byte[] bytes) {
+        CarritoCompacto carrito = new CarritoCompacto();
+        int[] posicion = { 0 };
+        int tamano = (int) leerVarint(bytes, posicion);
+        for (int i = 0; i < tamano; i++) {
+            long planId = leerVarint(bytes, posicion);
+            carrito.agregar(planId, (int) leerVarint(bytes, posicion));
+        }
+        for (int i = 0; i < tamano && posicion[0] < bytes.length; i++) {
+            carrito.franjas[i] = leerVarint(bytes, posicion);
+        }
+        return carrito;
+    }
+
+    private int indice(long planId) {
+        for (int i = 0; i < tamano; i++) {
+            if (planIds[i] == planId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream salida) throws IOException {
+        byte[] bytes = serializar();
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream entrada) throws IOException {
+        byte[] bytes = new byte[entrada.readInt()];
+        entrada.readFully(bytes);
+        CarritoCompacto copia = deserializar(bytes);
+        planIds = copia.planIds;
+        cantidades = copia.cantidades;
+        franjas = copia.franjas;
+        tamano = copia.tamano;
+    }
+
+    private static void escribirVarint(ByteArrayOutputStream salida, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            salida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        salida.write((int) valor);
+    }
+
+    private static long leerVarint(byte[] bytes, int[] posicion) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte b = bytes[posicion[0]++];
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint inválido en el carrito");
+    }
+}
@@ -0,0 +1,83 @@
+package cl.sergiocarocca.cita_ideal_cl.entity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estados posibles de una {@link Reserva} y las transiciones permitidas entre ellos.
+ * <pre>
+ * PENDIENTE ──► CONFIRMADA
+ *     │             │
+ *     └──► CANCELADA ◄┘
+ * </pre>
+ * Una reserva cancelada es definitiva: su franja ya pudo ser tomada por otro cliente.
+ * En la base de datos se guarda como {@code SMALLINT} mediante {@link #getCodigo()}
+ * (ver {@link EstadoReservaConverter}); los códigos no deben cambiar una vez asignados.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+public enum EstadoReserva {
+
+    PENDIENTE((short) 0),
+    CONFIRMADA((short) 1),
+    CANCELADA((short) 2);
+
+    private final short codigo;
+
+    EstadoReserva(short codigo) {
+        this.codigo = codigo;
+    }
+
+    /**
+     * Código con el que se persiste el estado.
+     * * @return Valor de la columna {@code reservas.estado}.
+     */
+    public short getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * Indica si la reserva ocupa su franja horaria (toda reserva no cancelada).
+     * * @return true si el estado bloquea el horario para otros clientes.
+     */
+    public boolean isActiva() {
+        return this != CANCELADA;
+    }
+
+    /**
+     * Verifica si se permite pasar de este estado al indicado.
+     * * @param destino Estado al que se quiere cambiar.
+     * @return true si la transición es válida.
+     */
+    public boolean puedeCambiarA(EstadoReserva destino) {
+        return switch (this) {
+            case PENDIENTE -> destino == CONFIRMADA || destino == CANCELADA;
+            case CONFIRMADA -> destino == CANCELADA;
+            case CANCELADA -> false;
+        };
+    }
+
+    /**
+     * Estados desde los cuales se puede llegar al indicado.
+     * * @param destino Estado de llegada.
+     * @return Lista (posiblemente vacía) de estados de origen válidos.
+     */
+    public static List<EstadoReserva> origenesDe(EstadoReserva destino) {
+        return Arrays.stream(values()).filter(e -> e.puedeCambiarA(destino)).toList();
+    }
+
+    /**
+     * Obtiene el estado correspondiente a un código persistido.
+     * * @param codigo Valor de la columna {@code reservas.estado}.
+     * @return El estado asociado.
+     * @throws IllegalArgumentException Si el código no corresponde a ningún estado.
+     */
+    public static EstadoReserva desdeCodigo(short codigo) {
+        for (EstadoReserva estado : values()) {
+            if (estado.codigo == codigo) {
+                return estado;
+            }
+        }
+        throw new IllegalArgumentException("Código de estado de reserva desconocido: " + codigo);
+    }
+}
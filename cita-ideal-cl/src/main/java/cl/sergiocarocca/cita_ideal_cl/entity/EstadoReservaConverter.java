@@ -0,0 +1,25 @@
+package cl.sergiocarocca.cita_ideal_cl.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte {@link EstadoReserva} a su código {@code SMALLINT}.
+ * Se usa un código explícito en vez de {@code EnumType.ORDINAL} para que reordenar
+ * o agregar constantes al enum no altere los datos ya guardados.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Converter(autoApply = true)
+public class EstadoReservaConverter implements AttributeConverter<EstadoReserva, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(EstadoReserva estado) {
+        return estado == null ? null : estado.getCodigo();
+    }
+
+    @Override
+    public EstadoReserva convertToEntityAttribute(Short codigo) {
+        return codigo == null ? null : EstadoReserva.desdeCodigo(codigo);
+    }
+}
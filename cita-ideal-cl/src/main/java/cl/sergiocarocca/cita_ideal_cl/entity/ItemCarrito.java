@@ -1,6 +1,8 @@
 package cl.sergiocarocca.cita_ideal_cl.entity;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
 
 /**
  * Clase de apoyo que representa un elemento individual dentro del carrito de compras.
@@ -17,6 +19,9 @@ public class ItemCarrito {
     /** La cantidad de veces que se ha agregado este plan al carrito. */
     private int cantidad;
 
+    /** Fecha y hora de la cita elegida para este plan (null mientras no se elija). */
+    private LocalDateTime fechaCita;
+
     /**
      * Constructor por defecto para la creación de instancias vacías.
      */
@@ -51,14 +56,22 @@ public class ItemCarrito {
         this.cantidad = cantidad;
     }
 
+    public LocalDateTime getFechaCita() {
+        return fechaCita;
+    }
+
+    public void setFechaCita(LocalDateTime fechaCita) {
+        this.fechaCita = fechaCita;
+    }
+
     /**
      * Calcula el monto parcial de este ítem multiplicando el precio base del plan
      * por la cantidad seleccionada.
-     * * @return Un {@link BigDecimal} que representa el subtotal del ítem, 
-     * manteniendo la precisión decimal para transacciones financieras.
+     * * @return Un {@link Dinero} que representa el subtotal del ítem, 
+     * calculado con aritmética entera sobre pesos.
      */
-    public BigDecimal getSubtotal() {
-        // Se asume que plan.getPrecioBase() no es nulo
-        return plan.getPrecioBase().multiply(new BigDecimal(cantidad));
+    public Dinero getSubtotal() {
+        // Se asume que plan.getPrecio() no es nulo
+        return plan.getPrecio().por(cantidad);
     }
 }
\ No newline at end of file
@@ -2,12 +2,15 @@ package cl.sergiocarocca.cita_ideal_cl.entity;
 
 import java.math.BigDecimal;
 
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -44,12 +47,17 @@ public class Plan {
 
     /** * Costo base del servicio.
      * Utiliza {@link BigDecimal} para evitar errores de precisión decimal.
-     * Restricción: Debe ser un valor estrictamente mayor a 0.0.
+     * Restricción: Debe ser un valor estrictamente mayor a 0.0, en pesos enteros.
      */
     @Column(nullable = false)
     @NotNull(message = "El precio es obligatorio")
     @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor a 0")
+    @Digits(integer = 18, fraction = 0, message = "El precio debe ser un monto en pesos, sin decimales")
     private BigDecimal precioBase;
+
+    /** Precio base como {@link Dinero}; se convierte una vez por instancia (los planes viven en caché). */
+    @Transient
+    private Dinero precio;
     
     /** * Indica si el plan está visible en el catálogo público. 
      * Por defecto es true.
@@ -96,6 +104,21 @@ public class Plan {
 
     public void setPrecioBase(BigDecimal precioBase) {
         this.precioBase = precioBase;
+        this.precio = null;
+    }
+
+    /**
+     * Precio base para los cálculos del carrito, el checkout y las estadísticas.
+     * * @return Precio en pesos, o null si el plan aún no tiene precio.
+     * @throws ArithmeticException Si el precio guardado tiene centavos.
+     */
+    public Dinero getPrecio() {
+        Dinero actual = precio;
+        if (actual == null && precioBase != null) {
+            actual = Dinero.de(precioBase);
+            precio = actual;
+        }
+        return actual;
     }
 
     public String getImagenUrl() {
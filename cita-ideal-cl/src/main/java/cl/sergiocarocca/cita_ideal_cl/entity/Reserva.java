@@ -2,7 +2,6 @@ package cl.sergiocarocca.cita_ideal_cl.entity;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * Entidad que representa la reserva de un servicio por parte de un cliente.
@@ -43,22 +42,21 @@ public class Reserva {
     @Column(nullable = false)
     private LocalDateTime fechaCita;
 
-    /** * Estado actual de la reserva. 
-     * Los valores posibles son: PENDIENTE, CONFIRMADA, CANCELADA.
+    /** * Estado actual de la reserva (se guarda como SMALLINT, ver {@link EstadoReservaConverter}).
+     * Solo cambia a través de {@link #cambiarEstado(EstadoReserva)}.
      */
-    private String estado = "PENDIENTE"; 
+    @Column(nullable = false)
+    private EstadoReserva estado = EstadoReserva.PENDIENTE;
     
-    /** * Código alfanumérico único para que el cliente identifique su reserva. 
+    /** * Código alfanumérico único para que el cliente identifique su reserva.
+     * Lo asigna {@link cl.sergiocarocca.cita_ideal_cl.util.GeneradorCodigo} al crearla.
      */
     private String codigoSeguimiento;
 
     /**
      * Constructor por defecto requerido por JPA.
-     * Inicializa automáticamente un código de seguimiento único basado en UUID.
      */
     public Reserva() {
-        // Generamos un código de seguimiento único al azar (primeros 8 caracteres)
-        this.codigoSeguimiento = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
     /**
@@ -70,7 +68,6 @@ public class Reserva {
      * @param fechaCita Fecha y hora de la cita.
      */
     public Reserva(Plan plan, String nombreCliente, String emailCliente, String telefonoCliente, LocalDateTime fechaCita) {
-        this(); // Invoca al constructor vacío para asegurar la generación del código de seguimiento
         this.plan = plan;
         this.nombreCliente = nombreCliente;
         this.emailCliente = emailCliente;
@@ -98,8 +95,20 @@ public class Reserva {
     public LocalDateTime getFechaCita() { return fechaCita; }
     public void setFechaCita(LocalDateTime fechaCita) { this.fechaCita = fechaCita; }
 
-    public String getEstado() { return estado; }
-    public void setEstado(String estado) { this.estado = estado; }
+    public EstadoReserva getEstado() { return estado; }
+
+    /**
+     * Cambia el estado de la reserva respetando las transiciones de {@link EstadoReserva}.
+     * * @param nuevo Estado de destino.
+     * @throws IllegalStateException Si la transición no está permitida.
+     */
+    public void cambiarEstado(EstadoReserva nuevo) {
+        if (!estado.puedeCambiarA(nuevo)) {
+            throw new IllegalStateException("La reserva " + codigoSeguimiento + " no puede pasar de "
+                    + estado + " a " + nuevo + ".");
+        }
+        this.estado = nuevo;
+    }
 
     public String getCodigoSeguimiento() { return codigoSeguimiento; }
     public void setCodigoSeguimiento(String codigoSeguimiento) { this.codigoSeguimiento = codigoSeguimiento; }
@@ -0,0 +1,54 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
+
+/**
+ * Repositorio JDBC de la búsqueda de texto completo sobre el catálogo de planes.
+ * Usa la columna generada {@code plan.busqueda} y su índice GIN (ver migración V9), con
+ * la configuración {@code es_sin_acentos}: lematización en español sin distinguir tildes.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class BusquedaPlanRepository {
+
+    /**
+     * websearch_to_tsquery acepta lo que escribe el cliente sin errores de sintaxis:
+     * palabras (todas deben aparecer), "frases entre comillas", "or" y -exclusiones.
+     */
+    private static final String BUSCAR =
+            "SELECT p.id, p.nombre, p.precio_base, p.imagen_url, " +
+            "substr(p.descripcion, 1, " + (PlanResumen.LARGO_DESCRIPCION + 1) + ") " +
+            "FROM plan p, websearch_to_tsquery('es_sin_acentos', ?) q " +
+            "WHERE p.activo AND p.busqueda @@ q " +
+            "ORDER BY ts_rank(p.busqueda, q) DESC, p.id " +
+            "LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public BusquedaPlanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Busca planes activos por palabras de su nombre o descripción.
+     * * @param texto Palabras ingresadas por el cliente (ej: "picnic playa").
+     * @param limite Cantidad máxima de resultados.
+     * @return Resúmenes de los planes encontrados, del más al menos relevante.
+     */
+    public List<PlanResumen> buscar(String texto, int limite) {
+        return jdbcTemplate.query(BUSCAR,
+                (rs, i) -> new PlanResumen(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3),
+                        rs.getString(4), rs.getString(5)),
+                texto, limite);
+    }
+}
@@ -1,11 +1,16 @@
 package cl.sergiocarocca.cita_ideal_cl.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import cl.sergiocarocca.cita_ideal_cl.entity.Consulta;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repositorio de acceso a datos para la entidad {@link Consulta}.
@@ -24,4 +29,16 @@ public interface ConsultaRepository extends JpaRepository<Consulta, Long> {
      * * @return Una lista de {@link Consulta} ordenada por fecha de envío de forma cronológica inversa.
      */
     List<Consulta> findAllByOrderByFechaEnvioDesc();
+
+    /**
+     * Recorre todas las consultas (con su plan, si tienen) mediante un cursor del servidor,
+     * en bloques de 500 filas. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * * @return Flujo de consultas de la más reciente a la más antigua.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Consulta c LEFT JOIN FETCH c.plan ORDER BY c.fechaEnvio DESC, c.id DESC")
+    Stream<Consulta> streamTodas();
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.dto.EstadisticaPeriodo;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+
+/**
+ * Repositorio JDBC de la tabla {@code estadisticas_reservas_dia}.
+ * Los incrementos se aplican con un UPSERT atómico de PostgreSQL, por lo que varias
+ * transacciones pueden actualizar el mismo (plan, día) sin perder cambios.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class EstadisticasRepository {
+
+    private static final String SUMAR =
+            "INSERT INTO estadisticas_reservas_dia AS e (plan_id, dia, pendientes, confirmadas, canceladas, ingresos) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (plan_id, dia) DO UPDATE SET " +
+            "pendientes = e.pendientes + EXCLUDED.pendientes, " +
+            "confirmadas = e.confirmadas + EXCLUDED.confirmadas, " +
+            "canceladas = e.canceladas + EXCLUDED.canceladas, " +
+            "ingresos = e.ingresos + EXCLUDED.ingresos";
+
+    private static final String RECALCULAR =
+            "INSERT INTO estadisticas_reservas_dia (plan_id, dia, pendientes, confirmadas, canceladas, ingresos) " +
+            "SELECT r.plan_id, CAST(r.fecha_cita AS DATE), " +
+            "COUNT(*) FILTER (WHERE r.estado = " + EstadoReserva.PENDIENTE.getCodigo() + "), " +
+            "COUNT(*) FILTER (WHERE r.estado = " + EstadoReserva.CONFIRMADA.getCodigo() + "), " +
+            "COUNT(*) FILTER (WHERE r.estado = " + EstadoReserva.CANCELADA.getCodigo() + "), " +
+            "COALESCE(SUM(p.precio_base) FILTER (WHERE r.estado = " + EstadoReserva.CONFIRMADA.getCodigo() + "), 0) " +
+            "FROM reservas r JOIN plan p ON p.id = r.plan_id " +
+            "GROUP BY r.plan_id, CAST(r.fecha_cita AS DATE)";
+
+    private static final String RESUMEN =
+            "SELECT CAST(date_trunc(?, CAST(e.dia AS TIMESTAMP)) AS DATE) AS periodo, e.plan_id, p.nombre, " +
+            "SUM(e.pendientes), SUM(e.confirmadas), SUM(e.canceladas), SUM(e.ingresos) " +
+            "FROM estadisticas_reservas_dia e JOIN plan p ON p.id = e.plan_id " +
+            "WHERE e.dia >= ? AND e.dia <= ? " +
+            "GROUP BY 1, e.plan_id, p.nombre " +
+            "ORDER BY 1 DESC, p.nombre";
+
+    /**
+     * Variación de los contadores de un plan en un día.
+     * * @param planId Identificador del plan.
+     * @param dia Día de la cita.
+     * @param pendientes Variación de reservas pendientes.
+     * @param confirmadas Variación de reservas confirmadas.
+     * @param canceladas Variación de reservas canceladas.
+     * @param ingresos Variación de ingresos.
+     */
+    public record Incremento(Long planId, LocalDate dia, int pendientes, int confirmadas, int canceladas,
+                             Dinero ingresos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public EstadisticasRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Suma (o resta, con valores negativos) contadores al resumen de un plan en un día.
+     * * @param planId Identificador del plan.
+     * @param dia Día de la cita.
+     * @param pendientes Variación de reservas pendientes.
+     * @param confirmadas Variación de reservas confirmadas.
+     * @param canceladas Variación de reservas canceladas.
+     * @param ingresos Variación de ingresos.
+     */
+    public void sumar(Long planId, LocalDate dia, int pendientes, int confirmadas, int canceladas,
+                      Dinero ingresos) {
+        jdbcTemplate.update(SUMAR, planId, Date.valueOf(dia), pendientes, confirmadas, canceladas, ingresos.pesos());
+    }
+
+    /**
+     * Aplica varios incrementos en un solo lote JDBC.
+     * * @param incrementos Variaciones a sumar, idealmente ordenadas por (plan, día) para que
+     *        transacciones concurrentes bloqueen las filas del resumen en el mismo orden.
+     */
+    public void sumarTodos(List<Incremento> incrementos) {
+        jdbcTemplate.batchUpdate(SUMAR, incrementos, incrementos.size(), (ps, inc) -> {
+            ps.setLong(1, inc.planId());
+            ps.setDate(2, Date.valueOf(inc.dia()));
+            ps.setInt(3, inc.pendientes());
+            ps.setInt(4, inc.confirmadas());
+            ps.setInt(5, inc.canceladas());
+            ps.setLong(6, inc.ingresos().pesos());
+        });
+    }
+
+    /**
+     * Reemplaza el resumen por el calculado desde la tabla de reservas, a partir del día
+     * de la cita más antigua que sigue en ella: los días de las particiones archivadas
+     * conservan su resumen.
+     * Debe ejecutarse dentro de una transacción para que los lectores nunca vean la tabla vacía.
+     * El bloqueo EXCLUSIVE (los lectores siguen consultando) detiene los UPSERT de las reservas
+     * que se confirman mientras tanto: esperan al fin del recálculo y suman su cambio después,
+     * en vez de chocar con la clave del INSERT o perderse en el conteo. Las que ya habían sumado
+     * su cambio se esperan antes de borrar, por lo que sus reservas entran en el conteo.
+     * * @return Cantidad de filas (plan, día) generadas.
+     */
+    public int recalcular() {
+        jdbcTemplate.execute("LOCK TABLE estadisticas_reservas_dia IN EXCLUSIVE MODE");
+        LocalDate desde = jdbcTemplate.queryForObject(
+                "SELECT CAST(min(fecha_cita) AS DATE) FROM reservas", LocalDate.class);
+        if (desde == null) {
+            return 0;
+        }
+        jdbcTemplate.update("DELETE FROM estadisticas_reservas_dia WHERE dia >= ?", Date.valueOf(desde));
+        return jdbcTemplate.update(RECALCULAR);
+    }
+
+    /**
+     * Agrega el resumen diario por período y plan.
+     * * @param unidad Unidad de {@code date_trunc}: "day", "week" o "month".
+     * @param desde Primer día (inclusive).
+     * @param hasta Último día (inclusive).
+     * @return Filas ordenadas del período más reciente al más antiguo.
+     */
+    public List<EstadisticaPeriodo> resumen(String unidad, LocalDate desde, LocalDate hasta) {
+        return jdbcTemplate.query(RESUMEN, (rs, i) -> new EstadisticaPeriodo(
+                rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getString(3),
+                rs.getLong(4), rs.getLong(5), rs.getLong(6), Dinero.de(rs.getBigDecimal(7))),
+                unidad, Date.valueOf(desde), Date.valueOf(hasta));
+    }
+}
@@ -0,0 +1,105 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repositorio JDBC con las operaciones DDL sobre las particiones mensuales de
+ * {@code reservas} (ver migración V7). Cada partición se llama {@code reservas_pAAAAMM}
+ * y cubre las citas de ese mes.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class ParticionesRepository {
+
+    private static final String PREFIJO = "reservas_p";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** Esquema al que se mueven las particiones archivadas. */
+    private static final String ESQUEMA_ARCHIVO = "archivo";
+
+    private static final String LISTAR =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'reservas'::regclass AND c.relname ~ '^reservas_p[0-9]{6}$' " +
+            "ORDER BY c.relname";
+
+    private static final String BLOQUEAR =
+            "SELECT pg_try_advisory_xact_lock(hashtext('reservas_particiones'))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public ParticionesRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Toma el bloqueo consultivo del mantenimiento de particiones hasta el fin de la
+     * transacción en curso, sin esperar. Evita que dos instancias creen o archiven la
+     * misma partición a la vez (el segundo {@code CREATE TABLE} fallaría).
+     * * @return {@code true} si se obtuvo el bloqueo; {@code false} si otra transacción lo tiene.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean bloquearMantenimiento() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(BLOQUEAR, Boolean.class));
+    }
+
+    /**
+     * Meses que tienen una partición vinculada a {@code reservas}.
+     * * @return Meses en orden cronológico (sin la partición por defecto).
+     */
+    public List<YearMonth> mesesParticionados() {
+        return jdbcTemplate.queryForList(LISTAR, String.class).stream()
+                .map(nombre -> YearMonth.parse(nombre.substring(PREFIJO.length()), FORMATO_MES))
+                .toList();
+    }
+
+    /**
+     * Crea la partición de un mes. Las citas de ese mes que estuvieran en
+     * {@code reservas_default} se trasladan a la nueva partición antes de vincularla,
+     * todo dentro de la misma transacción.
+     * * @param mes Mes a particionar.
+     * @return Cantidad de reservas trasladadas desde la partición por defecto.
+     */
+    @Transactional
+    public int crearParticion(YearMonth mes) {
+        String tabla = nombre(mes);
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + tabla + " (LIKE reservas INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int trasladadas = jdbcTemplate.update(
+                "WITH movidas AS (DELETE FROM reservas_default WHERE fecha_cita >= ? AND fecha_cita < ? RETURNING *) " +
+                "INSERT INTO " + tabla + " SELECT * FROM movidas", desde, hasta);
+        jdbcTemplate.execute("ALTER TABLE reservas ATTACH PARTITION " + tabla +
+                " FOR VALUES FROM ('" + desde + "') TO ('" + hasta + "')");
+        return trasladadas;
+    }
+
+    /**
+     * Desvincula la partición de un mes y la mueve al esquema de archivo. Sus reservas
+     * dejan de aparecer en las consultas de la aplicación pero los datos se conservan.
+     * * @param mes Mes a archivar.
+     */
+    @Transactional
+    public void archivarParticion(YearMonth mes) {
+        String tabla = nombre(mes);
+        jdbcTemplate.execute("ALTER TABLE reservas DETACH PARTITION " + tabla);
+        jdbcTemplate.execute("ALTER TABLE " + tabla + " SET SCHEMA " + ESQUEMA_ARCHIVO);
+    }
+
+    private static String nombre(YearMonth mes) {
+        return PREFIJO + mes.format(FORMATO_MES);
+    }
+}
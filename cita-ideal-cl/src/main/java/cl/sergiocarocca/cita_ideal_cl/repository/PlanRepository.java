@@ -1,8 +1,13 @@
 package cl.sergiocarocca.cita_ideal_cl.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanPublico;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
 import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
 
 /**
@@ -15,7 +20,25 @@ import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
  */
 @Repository
 public interface PlanRepository extends JpaRepository<Plan, Long> {
-    
-    // Aquí podrías crear métodos personalizados, por ejemplo:
-    // List<Plan> findByNombreContaining(String nombre);
-}
\ No newline at end of file
+
+    /**
+     * Resumen de los planes visibles en el catálogo público, en orden de creación.
+     * El filtro por activo y el recorte de la descripción se hacen en la base de datos; se trae
+     * un carácter más del extracto para que {@link PlanResumen} sepa si debe agregar "…".
+     * * @return Lista de resúmenes de planes activos.
+     */
+    @Query("SELECT new cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen(p.id, p.nombre, p.precioBase, p.imagenUrl, "
+            + "substring(p.descripcion, 1, " + (PlanResumen.LARGO_DESCRIPCION + 1) + ")) "
+            + "FROM Plan p WHERE p.activo = true ORDER BY p.id")
+    List<PlanResumen> listarResumenActivos();
+
+    /**
+     * Planes visibles en el catálogo público con su descripción completa, en orden de
+     * creación. Es la fuente de {@code /api/planes}; los listados HTML usan
+     * {@link #listarResumenActivos()}.
+     * * @return Lista de planes activos para la API.
+     */
+    @Query("SELECT new cl.sergiocarocca.cita_ideal_cl.dto.PlanPublico(p.id, p.nombre, p.precioBase, p.imagenUrl, "
+            + "p.descripcion) FROM Plan p WHERE p.activo = true ORDER BY p.id")
+    List<PlanPublico> listarPublicosActivos();
+}
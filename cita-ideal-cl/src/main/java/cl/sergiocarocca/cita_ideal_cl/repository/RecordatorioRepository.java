@@ -0,0 +1,157 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.RecordatorioPendiente;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+
+/**
+ * Repositorio JDBC de los recordatorios por correo (tabla {@code recordatorios_enviados}).
+ * Cada (reserva, tipo) pasa por ENVIANDO y termina en ENVIADO o FALLIDO. Los fallidos
+ * se reintentan hasta un máximo de intentos, y los que quedaron en ENVIANDO por una
+ * caída del proceso se vuelven a reclamar pasado un tiempo.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class RecordatorioRepository {
+
+    private static final short ENVIANDO = 0;
+    private static final short ENVIADO = 1;
+    private static final short FALLIDO = 2;
+
+    /** Un recordatorio ya registrado vuelve a enviarse solo si falló o quedó abandonado. */
+    private static final String SE_PUEDE_REINTENTAR =
+            "((e.estado = " + FALLIDO + " AND e.intentos < ?) OR (e.estado = " + ENVIANDO + " AND e.actualizado_en < ?))";
+
+    /** Página (fecha_cita, id) de reservas activas en la ventana sin recordatorio entregado. */
+    private static final String BUSCAR_PENDIENTES =
+            "SELECT r.id, r.fecha_cita, r.nombre_cliente, r.email_cliente, r.codigo_seguimiento, p.nombre " +
+            "FROM reservas r JOIN plan p ON p.id = r.plan_id " +
+            "LEFT JOIN recordatorios_enviados e ON e.reserva_id = r.id AND e.tipo = ? " +
+            "WHERE r.fecha_cita >= ? AND r.fecha_cita <= ? AND (r.fecha_cita, r.id) > (?, ?) " +
+            "AND r.estado <> " + EstadoReserva.CANCELADA.getCodigo() + " " +
+            "AND (e.reserva_id IS NULL OR " + SE_PUEDE_REINTENTAR + ") " +
+            "ORDER BY r.fecha_cita, r.id " +
+            "LIMIT ?";
+
+    /** Reclama de forma atómica los recordatorios que nadie más está enviando. */
+    private static final String RECLAMAR =
+            "INSERT INTO recordatorios_enviados AS e (reserva_id, tipo, fecha_cita, estado, intentos, actualizado_en) " +
+            "SELECT t.id, ?, t.fecha, " + ENVIANDO + ", 1, ? FROM unnest(?::bigint[], ?::timestamp[]) AS t(id, fecha) " +
+            "ON CONFLICT (reserva_id, tipo) DO UPDATE SET estado = " + ENVIANDO + ", " +
+            "intentos = e.intentos + 1, actualizado_en = EXCLUDED.actualizado_en " +
+            "WHERE " + SE_PUEDE_REINTENTAR + " " +
+            "RETURNING e.reserva_id";
+
+    private static final String REGISTRAR =
+            "UPDATE recordatorios_enviados SET estado = ?, actualizado_en = ? WHERE tipo = ? AND reserva_id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public RecordatorioRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Obtiene la siguiente página de reservas que deben recibir el recordatorio.
+     * Recorre el índice (fecha_cita, id) solo dentro de la ventana indicada.
+     * * @param tipo Código del tipo de recordatorio.
+     * @param despuesFecha Fecha de la última reserva de la página anterior (o el inicio de la ventana).
+     * @param despuesId Id de la última reserva de la página anterior (o 0).
+     * @param hasta Fin de la ventana (inclusive).
+     * @param maxIntentos Intentos tras los cuales un recordatorio fallido se abandona.
+     * @param abandonadoAntesDe Los reclamados antes de este instante y aún en ENVIANDO se reintentan.
+     * @param limite Tamaño de la página.
+     * @return Reservas ordenadas por (fecha_cita, id).
+     */
+    public List<RecordatorioPendiente> buscarPendientes(short tipo, LocalDateTime despuesFecha, long despuesId,
+                                                        LocalDateTime hasta, int maxIntentos,
+                                                        LocalDateTime abandonadoAntesDe, int limite) {
+        Timestamp desde = Timestamp.valueOf(despuesFecha);
+        return jdbcTemplate.query(BUSCAR_PENDIENTES, (rs, i) -> new RecordatorioPendiente(
+                rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getString(3),
+                rs.getString(4), rs.getString(5), rs.getString(6)),
+                tipo, desde, Timestamp.valueOf(hasta), desde, despuesId,
+                maxIntentos, Timestamp.valueOf(abandonadoAntesDe), limite);
+    }
+
+    /**
+     * Marca como ENVIANDO los recordatorios de la página. Si otro nodo (o una ejecución
+     * anterior) ya los entregó o los está enviando, no se reclaman.
+     * * @param tipo Código del tipo de recordatorio.
+     * @param pendientes Reservas a reclamar.
+     * @param ahora Instante del reclamo.
+     * @param maxIntentos Intentos tras los cuales un recordatorio fallido se abandona.
+     * @param abandonadoAntesDe Los reclamados antes de este instante y aún en ENVIANDO se reintentan.
+     * @return Identificadores de las reservas reclamadas por esta llamada.
+     */
+    public Set<Long> reclamar(short tipo, List<RecordatorioPendiente> pendientes, LocalDateTime ahora,
+                              int maxIntentos, LocalDateTime abandonadoAntesDe) {
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RECLAMAR);
+            Array ids = con.createArrayOf("bigint",
+                    pendientes.stream().map(RecordatorioPendiente::reservaId).toArray());
+            Array fechas = con.createArrayOf("timestamp",
+                    pendientes.stream().map(p -> Timestamp.valueOf(p.fechaCita())).toArray());
+            ps.setShort(1, tipo);
+            ps.setTimestamp(2, Timestamp.valueOf(ahora));
+            ps.setArray(3, ids);
+            ps.setArray(4, fechas);
+            ps.setInt(5, maxIntentos);
+            ps.setTimestamp(6, Timestamp.valueOf(abandonadoAntesDe));
+            return ps;
+        }, (rs, i) -> rs.getLong(1)));
+    }
+
+    /**
+     * Registra el resultado de los envíos de una página.
+     * * @param tipo Código del tipo de recordatorio.
+     * @param enviados Reservas cuyo correo fue aceptado por el servidor SMTP.
+     * @param fallidos Reservas cuyo envío falló.
+     * @param ahora Instante del registro.
+     */
+    public void registrarResultado(short tipo, Collection<Long> enviados, Collection<Long> fallidos,
+                                   LocalDateTime ahora) {
+        actualizarEstado(tipo, enviados, ENVIADO, ahora);
+        actualizarEstado(tipo, fallidos, FALLIDO, ahora);
+    }
+
+    /**
+     * Elimina el registro de los recordatorios de citas anteriores a la fecha indicada.
+     * * @param antesDe Fecha de corte.
+     * @return Cantidad de filas eliminadas.
+     */
+    public int purgar(LocalDateTime antesDe) {
+        return jdbcTemplate.update("DELETE FROM recordatorios_enviados WHERE fecha_cita < ?",
+                Timestamp.valueOf(antesDe));
+    }
+
+    private void actualizarEstado(short tipo, Collection<Long> ids, short estado, LocalDateTime ahora) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(REGISTRAR);
+            ps.setShort(1, estado);
+            ps.setTimestamp(2, Timestamp.valueOf(ahora));
+            ps.setShort(3, tipo);
+            ps.setArray(4, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        });
+    }
+}
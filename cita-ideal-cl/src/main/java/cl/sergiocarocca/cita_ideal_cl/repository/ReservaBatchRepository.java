@@ -0,0 +1,166 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.CambioEstadoReserva;
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+
+/**
+ * Repositorio JDBC para las operaciones masivas sobre reservas.
+ * Como {@link Reserva} utiliza {@code GenerationType.IDENTITY}, Hibernate no puede
+ * agrupar sus inserciones; este componente las envía en un único lote JDBC y
+ * recupera los identificadores generados por la base de datos. También cambia el
+ * estado de muchas reservas con una sola sentencia UPDATE y valida la disponibilidad
+ * de varias franjas (plan, horario) con una sola consulta.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class ReservaBatchRepository {
+
+    private static final String INSERT_RESERVA =
+            "INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente, " +
+            "fecha_cita, estado, codigo_seguimiento) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Bloquea las filas que admiten la transición (FOR UPDATE vuelve a evaluar el estado
+     * si otra transacción lo cambió mientras se esperaba), las actualiza y devuelve el
+     * estado anterior de cada una junto con el precio del plan.
+     */
+    private static final String CAMBIAR_ESTADO =
+            "UPDATE reservas r SET estado = ? " +
+            "FROM (SELECT r2.id, r2.estado, p.precio_base FROM reservas r2 JOIN plan p ON p.id = r2.plan_id " +
+            "      WHERE r2.id = ANY (?) AND r2.estado = ANY (?) FOR UPDATE OF r2) a " +
+            "WHERE r.id = a.id " +
+            "RETURNING r.id, r.plan_id, r.fecha_cita, a.estado, a.precio_base";
+
+    /**
+     * Cruza las franjas pedidas (dos arreglos paralelos) con las reservas activas. El rango
+     * de fechas explícito permite descartar las particiones que no contienen ninguna franja.
+     */
+    private static final String FRANJAS_OCUPADAS =
+            "SELECT DISTINCT r.plan_id, r.fecha_cita FROM reservas r " +
+            "JOIN unnest(?, ?) AS f(plan_id, fecha_cita) " +
+            "  ON r.plan_id = f.plan_id AND r.fecha_cita = f.fecha_cita " +
+            "WHERE r.estado <> ? AND r.fecha_cita BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public ReservaBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserta todas las reservas en un solo lote y asigna a cada una el ID generado.
+     * Participa de la transacción activa, por lo que un error revierte el lote completo.
+     * * @param reservas Reservas nuevas (sin ID) con su plan asignado.
+     * @throws IllegalStateException Si el driver no devuelve un ID por cada fila insertada.
+     */
+    public void insertarTodas(List<Reserva> reservas) {
+        KeyHolder llaves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_RESERVA, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reserva r = reservas.get(i);
+                        ps.setLong(1, r.getPlan().getId());
+                        ps.setString(2, r.getNombreCliente());
+                        ps.setString(3, r.getEmailCliente());
+                        ps.setString(4, r.getTelefonoCliente());
+                        ps.setTimestamp(5, Timestamp.valueOf(r.getFechaCita()));
+                        ps.setShort(6, r.getEstado().getCodigo());
+                        ps.setString(7, r.getCodigoSeguimiento());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reservas.size();
+                    }
+                },
+                llaves);
+
+        List<Map<String, Object>> generadas = llaves.getKeyList();
+        if (generadas.size() != reservas.size()) {
+            // Sin ID no se pueden registrar estadísticas ni mostrar la confirmación: se revierte el lote
+            throw new IllegalStateException("El lote de reservas devolvió " + generadas.size()
+                    + " IDs generados para " + reservas.size() + " filas");
+        }
+        for (int i = 0; i < reservas.size(); i++) {
+            reservas.get(i).setId(((Number) generadas.get(i).get("id")).longValue());
+        }
+    }
+
+    /**
+     * Determina en una sola consulta cuáles de las franjas entregadas ya tienen una
+     * reserva activa, sin importar cuántos planes ni cuántas fechas distintas incluyan.
+     * * @param franjas Pares (plan, fecha y hora) a validar.
+     * @return Subconjunto de las franjas que están ocupadas.
+     */
+    public Set<FranjaPlan> franjasOcupadas(Collection<FranjaPlan> franjas) {
+        if (franjas.isEmpty()) {
+            return Set.of();
+        }
+        LocalDateTime desde = franjas.stream().map(FranjaPlan::fecha).min(Comparator.naturalOrder()).get();
+        LocalDateTime hasta = franjas.stream().map(FranjaPlan::fecha).max(Comparator.naturalOrder()).get();
+        return new HashSet<>(jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(FRANJAS_OCUPADAS);
+            ps.setArray(1, con.createArrayOf("bigint", franjas.stream().map(FranjaPlan::planId).toArray()));
+            ps.setArray(2, con.createArrayOf("timestamp",
+                    franjas.stream().map(f -> Timestamp.valueOf(f.fecha())).toArray()));
+            ps.setShort(3, EstadoReserva.CANCELADA.getCodigo());
+            ps.setTimestamp(4, Timestamp.valueOf(desde));
+            ps.setTimestamp(5, Timestamp.valueOf(hasta));
+            return ps;
+        }, (rs, i) -> new FranjaPlan(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime())));
+    }
+
+    /**
+     * Cambia el estado de las reservas indicadas en una sola sentencia. Solo se modifican
+     * las que están en un estado desde el cual la transición es válida; el resto se omite.
+     * * @param ids Identificadores de las reservas.
+     * @param nuevo Estado de destino.
+     * @return Reservas efectivamente modificadas.
+     */
+    public List<CambioEstadoReserva> cambiarEstado(Collection<Long> ids, EstadoReserva nuevo) {
+        List<EstadoReserva> origenes = EstadoReserva.origenesDe(nuevo);
+        if (ids.isEmpty() || origenes.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CAMBIAR_ESTADO);
+            Array arregloIds = con.createArrayOf("bigint", ids.toArray());
+            Array arregloOrigenes = con.createArrayOf("smallint",
+                    origenes.stream().map(EstadoReserva::getCodigo).toArray());
+            ps.setShort(1, nuevo.getCodigo());
+            ps.setArray(2, arregloIds);
+            ps.setArray(3, arregloOrigenes);
+            return ps;
+        }, (rs, i) -> new CambioEstadoReserva(
+                rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).toLocalDateTime(),
+                EstadoReserva.desdeCodigo(rs.getShort(4)), nuevo, Dinero.de(rs.getBigDecimal(5))));
+    }
+}
@@ -0,0 +1,64 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.FiltroReservas;
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Especificaciones (Criteria API) para el listado administrativo de reservas.
+ * Solo se agregan a la consulta los filtros presentes, para que PostgreSQL pueda
+ * elegir el índice que corresponde a cada combinación.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+public final class ReservaEspecificaciones {
+
+    private ReservaEspecificaciones() {
+    }
+
+    /**
+     * Reservas que cumplen el filtro y que van después de la clave (fechaCita, id) en
+     * orden descendente, cargando el plan en la misma consulta.
+     * * @param filtro Filtros seleccionados en el panel.
+     * @param despuesFecha Fecha de la última reserva de la página anterior (o null).
+     * @param despuesId Id de la última reserva de la página anterior (o null).
+     * @return Especificación para {@code findBy}.
+     */
+    public static Specification<Reserva> pagina(FiltroReservas filtro, LocalDateTime despuesFecha, Long despuesId) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                // JOIN FETCH: evita una consulta adicional por fila al mostrar el plan
+                root.fetch("plan", JoinType.INNER);
+            }
+            List<Predicate> condiciones = new ArrayList<>();
+            if (filtro.estado() != null) {
+                condiciones.add(cb.equal(root.get("estado"), filtro.estado()));
+            }
+            if (filtro.planId() != null) {
+                condiciones.add(cb.equal(root.get("plan").get("id"), filtro.planId()));
+            }
+            if (filtro.desde() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("fechaCita"), filtro.desde().atStartOfDay()));
+            }
+            if (filtro.hasta() != null) {
+                condiciones.add(cb.lessThan(root.get("fechaCita"), filtro.hasta().plusDays(1).atStartOfDay()));
+            }
+            if (despuesFecha != null && despuesId != null) {
+                // (fechaCita, id) < (despuesFecha, despuesId), escrito para que el índice
+                // reciba la cota fechaCita <= despuesFecha
+                condiciones.add(cb.lessThanOrEqualTo(root.get("fechaCita"), despuesFecha));
+                condiciones.add(cb.or(
+                        cb.lessThan(root.get("fechaCita"), despuesFecha),
+                        cb.lessThan(root.get("id"), despuesId)));
+            }
+            return cb.and(condiciones.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -1,14 +1,20 @@
 package cl.sergiocarocca.cita_ideal_cl.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
 /**
  * Repositorio de acceso a datos para la entidad {@link Reserva}.
@@ -19,19 +25,22 @@ import java.util.List;
  * @version 1.0
  */
 @Repository
-public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+public interface ReservaRepository extends JpaRepository<Reserva, Long>, JpaSpecificationExecutor<Reserva> {
+
+    /** Literal JPQL del estado cancelado, convertido a su código SMALLINT por Hibernate. */
+    String ESTADO_CANCELADA = "cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva.CANCELADA";
 
     /**
      * Verifica la disponibilidad de un plan para una fecha y hora específicas.
      * Realiza una consulta personalizada (JPQL) para determinar si existe alguna 
-     * reserva previa con estado 'CONFIRMADA' que coincida con los parámetros.
+     * reserva activa (no cancelada) que coincida con los parámetros.
      * * @param planId Identificador único del plan a validar.
      * @param fecha Marca de tiempo (fecha y hora) de la cita solicitada.
      * @return true si ya existe una reserva confirmada para ese horario, false en caso contrario.
      */
 	@Query("SELECT COUNT(r) > 0 FROM Reserva r WHERE r.plan.id = :planId " +
 		       "AND r.fechaCita = :fecha " +
-		       "AND r.estado != 'CANCELADA'") // Cambiamos la condición
+		       "AND r.estado != " + ESTADO_CANCELADA)
 		boolean existeReservaEnEsaFecha(@Param("planId") Long planId, 
 		                                @Param("fecha") LocalDateTime fecha);
     /**
@@ -49,9 +58,41 @@ public interface ReservaRepository extends JpaRepository<Reserva, Long> {
     Reserva findByCodigoSeguimiento(String codigo);
     
     /**
-     * Obtiene el listado global de reservas ordenadas de forma cronológica inversa.
-     * Utilizado principalmente para el historial en el panel administrativo.
-     * * @return Lista de reservas ordenadas desde la más futura a la más antigua.
+     * Obtiene los pares (planId, fechaCita) de todas las reservas no canceladas
+     * a partir de una fecha. Se utiliza para precargar el índice de disponibilidad.
+     * Se lee con un cursor del servidor; debe consumirse dentro de una transacción.
+     * * @param desde Fecha y hora mínima (inclusive) de las citas a considerar.
+     * @return Flujo de arreglos {planId, fechaCita}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.plan.id, r.fechaCita FROM Reserva r " +
+           "WHERE r.fechaCita >= :desde AND r.estado != " + ESTADO_CANCELADA)
+    Stream<Object[]> findFranjasOcupadasDesde(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Recupera en una sola consulta las fechas ocupadas de un plan dentro de un rango.
+     * * @param planId Identificador del plan.
+     * @param desde Inicio del rango (inclusive).
+     * @param hasta Fin del rango (exclusivo).
+     * @return Fechas y horas de las reservas no canceladas en el rango.
+     */
+    @Query("SELECT r.fechaCita FROM Reserva r WHERE r.plan.id = :planId " +
+           "AND r.fechaCita >= :desde AND r.fechaCita < :hasta " +
+           "AND r.estado != " + ESTADO_CANCELADA)
+    List<LocalDateTime> findFechasOcupadasEntre(@Param("planId") Long planId,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Recorre todas las reservas (con su plan) mediante un cursor del servidor: el driver
+     * trae las filas en bloques de 500, por lo que la memoria no crece con la tabla.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * * @return Flujo de reservas de la cita más lejana a la más antigua.
      */
-    List<Reserva> findAllByOrderByFechaCitaDesc();
-}
\ No newline at end of file
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.plan ORDER BY r.fechaCita DESC, r.id DESC")
+    Stream<Reserva> streamTodas();
+}
@@ -0,0 +1,121 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+
+/**
+ * Repositorio JDBC de las retenciones de franjas (tabla {@code retenciones_franjas}).
+ * Todas las comparaciones de vigencia usan el reloj de la base de datos, así los nodos
+ * coinciden aunque sus relojes difieran.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Repository
+public class RetencionFranjasRepository {
+
+    /**
+     * Crea la retención, o la reemplaza solo si es del mismo token (renovación) o ya venció.
+     * Si otro token la tiene vigente no se modifica ninguna fila y no se devuelve nada.
+     */
+    private static final String RETENER =
+            "INSERT INTO retenciones_franjas (plan_id, fecha_cita, token, expira_en) " +
+            "VALUES (?, ?, ?, localtimestamp + make_interval(secs => ?)) " +
+            "ON CONFLICT (plan_id, fecha_cita) DO UPDATE " +
+            "SET token = EXCLUDED.token, expira_en = EXCLUDED.expira_en " +
+            "WHERE retenciones_franjas.token = EXCLUDED.token OR retenciones_franjas.expira_en <= localtimestamp " +
+            "RETURNING expira_en";
+
+    private static final String TOKEN_VIGENTE =
+            "SELECT token FROM retenciones_franjas " +
+            "WHERE plan_id = ? AND fecha_cita = ? AND expira_en > localtimestamp";
+
+    private static final String VIGENTES_ENTRE =
+            "SELECT fecha_cita FROM retenciones_franjas " +
+            "WHERE plan_id = ? AND fecha_cita >= ? AND fecha_cita < ? AND expira_en > localtimestamp";
+
+    private static final String VENCIDAS =
+            "DELETE FROM retenciones_franjas WHERE expira_en <= localtimestamp RETURNING plan_id, fecha_cita";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Plantilla JDBC asociada al datasource de la aplicación.
+     */
+    public RetencionFranjasRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Retiene la franja para el token durante el tiempo indicado.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @param token Identificador del proceso de pago del cliente.
+     * @param duracion Tiempo que dura la retención desde ahora.
+     * @return Vencimiento de la retención, o null si otro token la tiene vigente.
+     */
+    public LocalDateTime retener(Long planId, LocalDateTime fecha, String token, Duration duracion) {
+        List<LocalDateTime> expira = jdbcTemplate.query(RETENER,
+                (rs, i) -> rs.getTimestamp(1).toLocalDateTime(),
+                planId, Timestamp.valueOf(fecha), token, duracion.toMillis() / 1000.0);
+        return expira.isEmpty() ? null : expira.get(0);
+    }
+
+    /**
+     * Token dueño de la retención vigente de la franja.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @return El token, o null si la franja no está retenida.
+     */
+    public String tokenVigente(Long planId, LocalDateTime fecha) {
+        List<String> tokens = jdbcTemplate.queryForList(TOKEN_VIGENTE, String.class, planId, Timestamp.valueOf(fecha));
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    /**
+     * Horarios retenidos de un plan dentro de un rango.
+     * * @param planId Identificador del plan.
+     * @param desde Inicio del rango (inclusive).
+     * @param hasta Fin del rango (exclusive).
+     * @return Fechas y horas con una retención vigente.
+     */
+    public List<LocalDateTime> vigentesEntre(Long planId, LocalDateTime desde, LocalDateTime hasta) {
+        return jdbcTemplate.query(VIGENTES_ENTRE, (rs, i) -> rs.getTimestamp(1).toLocalDateTime(),
+                planId, Timestamp.valueOf(desde), Timestamp.valueOf(hasta));
+    }
+
+    /**
+     * Elimina la retención si pertenece al token. Con {@code expiraEn} solo se elimina esa
+     * retención concreta y no una renovación posterior del mismo token.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @param token Token dueño de la retención.
+     * @param expiraEn Vencimiento de la retención a eliminar (null para cualquiera del token).
+     * @return true si se eliminó una retención.
+     */
+    public boolean liberar(Long planId, LocalDateTime fecha, String token, LocalDateTime expiraEn) {
+        if (expiraEn == null) {
+            return jdbcTemplate.update("DELETE FROM retenciones_franjas WHERE plan_id = ? AND fecha_cita = ? AND token = ?",
+                    planId, Timestamp.valueOf(fecha), token) > 0;
+        }
+        return jdbcTemplate.update("DELETE FROM retenciones_franjas "
+                + "WHERE plan_id = ? AND fecha_cita = ? AND token = ? AND expira_en = ?",
+                planId, Timestamp.valueOf(fecha), token, Timestamp.valueOf(expiraEn)) > 0;
+    }
+
+    /**
+     * Elimina las retenciones vencidas, incluidas las de nodos que se detuvieron antes de
+     * liberarlas.
+     * * @return Franjas cuyas retenciones se eliminaron.
+     */
+    public List<FranjaPlan> eliminarVencidas() {
+        return jdbcTemplate.query(VENCIDAS, (rs, i) -> new FranjaPlan(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime()));
+    }
+}
@@ -0,0 +1,132 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché de muy corta duración para las consultas de disponibilidad de un horario.
+ * Cuando muchos clientes preguntan por el mismo (plan, fecha, hora) en el mismo
+ * instante, solo uno ejecuta la consulta real y el resto espera su resultado
+ * (coalescencia "single-flight"). El resultado se conserva durante un TTL breve y
+ * se invalida explícitamente desde las operaciones de escritura de reservas.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class CacheDisponibilidad {
+
+    /** Cantidad de entradas sobre la cual se purgan las expiradas. */
+    private static final int MAX_ENTRADAS = 10_000;
+
+    private record Clave(Long planId, LocalDateTime fecha) {
+    }
+
+    private record Entrada(boolean ocupado, long expiraNanos) {
+    }
+
+    private final ConcurrentHashMap<Clave, Entrada> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Clave, CompletableFuture<Boolean>> enVuelo = new ConcurrentHashMap<>();
+
+    /** Se incrementa en cada invalidación; una carga que se cruzó con una invalidación no se guarda. */
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder coalescidas = new LongAdder();
+
+    private final long ttlNanos;
+
+    /**
+     * Constructor con el tiempo de vida configurable de cada entrada.
+     * * @param ttl Duración de una respuesta en caché (ej: 500ms, 750us).
+     */
+    public CacheDisponibilidad(@Value("${citaideal.disponibilidad.cache-ttl:500ms}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Obtiene la ocupación de un horario desde la caché o, si no está vigente,
+     * ejecutando una única carga compartida por todas las peticiones concurrentes.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora consultada.
+     * @param cargador Consulta real a ejecutar en caso de fallo de caché.
+     * @return true si el horario está ocupado.
+     */
+    public boolean consultar(Long planId, LocalDateTime fecha, BooleanSupplier cargador) {
+        Clave clave = new Clave(planId, fecha);
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.expiraNanos() - System.nanoTime() > 0) {
+            aciertos.increment();
+            return entrada.ocupado();
+        }
+
+        CompletableFuture<Boolean> propia = new CompletableFuture<>();
+        CompletableFuture<Boolean> existente = enVuelo.putIfAbsent(clave, propia);
+        if (existente != null) {
+            coalescidas.increment();
+            return existente.join();
+        }
+
+        fallos.increment();
+        long generacionInicial = generacion.get();
+        try {
+            boolean ocupado = cargador.getAsBoolean();
+            if (generacionInicial == generacion.get()) {
+                guardar(clave, new Entrada(ocupado, System.nanoTime() + ttlNanos));
+            }
+            propia.complete(ocupado);
+            return ocupado;
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Descarta la respuesta almacenada para un horario tras un cambio en sus reservas.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora modificada.
+     */
+    public void invalidar(Long planId, LocalDateTime fecha) {
+        generacion.incrementAndGet();
+        Clave clave = new Clave(planId, fecha);
+        entradas.remove(clave);
+        enVuelo.remove(clave);
+    }
+
+    /**
+     * Contadores de uso de la caché.
+     * * @return Mapa con aciertos, fallos, peticiones coalescidas y entradas actuales.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> datos = new LinkedHashMap<>();
+        datos.put("aciertos", aciertos.sum());
+        datos.put("fallos", fallos.sum());
+        datos.put("coalescidas", coalescidas.sum());
+        datos.put("entradas", (long) entradas.size());
+        return datos;
+    }
+
+    private void guardar(Clave clave, Entrada entrada) {
+        if (entradas.size() >= MAX_ENTRADAS) {
+            long ahora = System.nanoTime();
+            entradas.values().removeIf(e -> e.expiraNanos() - ahora <= 0);
+            if (entradas.size() >= MAX_ENTRADAS) {
+                entradas.clear();
+            }
+        }
+        entradas.put(clave, entrada);
+    }
+}
@@ -0,0 +1,165 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.CatalogoSerializado;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+
+/**
+ * Caché en memoria del catálogo de planes: el resumen de los planes activos y los planes
+ * buscados por id. El catálogo cambia pocas veces por semana, por lo que cada entrada
+ * vive hasta un TTL largo o hasta que {@link PlanService} la invalida al escribir.
+ * También guarda el JSON de {@code /api/planes}, que se reconstruye solo tras una
+ * invalidación o cuando vence el TTL.
+ * El número de planes por id guardados está acotado.
+ * Los planes entregados son compartidos entre peticiones y no deben modificarse.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class CachePlanes {
+
+    private record Entrada<T>(T valor, long expiraNanos) {
+
+        boolean vigente(long ahora) {
+            return expiraNanos - ahora > 0;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Entrada<Plan>> porId = new ConcurrentHashMap<>();
+    private volatile Entrada<List<PlanResumen>> activos;
+    private volatile Entrada<CatalogoSerializado> serializado;
+
+    /** Se incrementa en cada invalidación; una carga que se cruzó con una invalidación no se guarda. */
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private final long ttlNanos;
+    private final int maxEntradas;
+
+    /**
+     * Constructor con el tiempo de vida y el tamaño máximo configurables.
+     * * @param ttl Duración máxima de una entrada (ej: 10m).
+     * @param maxEntradas Cantidad máxima de planes por id en memoria.
+     */
+    public CachePlanes(@Value("${citaideal.catalogo.cache-ttl:10m}") Duration ttl,
+                       @Value("${citaideal.catalogo.cache-max-entradas:500}") int maxEntradas) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntradas = maxEntradas;
+    }
+
+    /**
+     * Obtiene el resumen de los planes activos desde la caché o con el cargador indicado.
+     * * @param cargador Consulta real a ejecutar en caso de fallo de caché.
+     * @return Lista inmutable de resúmenes de planes activos.
+     */
+    public List<PlanResumen> activos(Supplier<List<PlanResumen>> cargador) {
+        Entrada<List<PlanResumen>> entrada = activos;
+        if (entrada != null && entrada.vigente(System.nanoTime())) {
+            aciertos.increment();
+            return entrada.valor();
+        }
+        fallos.increment();
+        long generacionInicial = generacion.get();
+        List<PlanResumen> lista = List.copyOf(cargador.get());
+        if (generacionInicial == generacion.get()) {
+            activos = new Entrada<>(lista, System.nanoTime() + ttlNanos);
+        }
+        return lista;
+    }
+
+    /**
+     * Obtiene el catálogo público serializado desde la caché o con el cargador indicado.
+     * * @param cargador Construye el catálogo en caso de fallo de caché.
+     * @return JSON del catálogo y su ETag.
+     */
+    public CatalogoSerializado serializado(Supplier<CatalogoSerializado> cargador) {
+        Entrada<CatalogoSerializado> entrada = serializado;
+        if (entrada != null && entrada.vigente(System.nanoTime())) {
+            aciertos.increment();
+            return entrada.valor();
+        }
+        fallos.increment();
+        long generacionInicial = generacion.get();
+        CatalogoSerializado catalogo = cargador.get();
+        if (generacionInicial == generacion.get()) {
+            serializado = new Entrada<>(catalogo, System.nanoTime() + ttlNanos);
+        }
+        return catalogo;
+    }
+
+    /**
+     * Obtiene un plan por id desde la caché o con el cargador indicado.
+     * Los ids inexistentes no se guardan.
+     * * @param id Identificador del plan.
+     * @param cargador Consulta real a ejecutar en caso de fallo de caché.
+     * @return El plan, o null si no existe.
+     */
+    public Plan porId(Long id, Supplier<Plan> cargador) {
+        Entrada<Plan> entrada = porId.get(id);
+        if (entrada != null && entrada.vigente(System.nanoTime())) {
+            aciertos.increment();
+            return entrada.valor();
+        }
+        fallos.increment();
+        long generacionInicial = generacion.get();
+        Plan plan = cargador.get();
+        if (plan != null && generacionInicial == generacion.get()) {
+            guardar(id, new Entrada<>(plan, System.nanoTime() + ttlNanos));
+        }
+        return plan;
+    }
+
+    /**
+     * Descarta un plan, la lista de activos y el catálogo serializado tras crearlo,
+     * modificarlo o eliminarlo.
+     * * @param id Identificador del plan modificado (null si es nuevo).
+     */
+    public void invalidar(Long id) {
+        generacion.incrementAndGet();
+        invalidaciones.increment();
+        if (id != null) {
+            porId.remove(id);
+        }
+        activos = null;
+        serializado = null;
+    }
+
+    /**
+     * Contadores de uso de la caché.
+     * * @return Mapa con aciertos, fallos, invalidaciones y entradas actuales.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> datos = new LinkedHashMap<>();
+        datos.put("aciertos", aciertos.sum());
+        datos.put("fallos", fallos.sum());
+        datos.put("invalidaciones", invalidaciones.sum());
+        datos.put("entradas", (long) porId.size() + (activos != null ? 1 : 0) + (serializado != null ? 1 : 0));
+        return datos;
+    }
+
+    private void guardar(Long id, Entrada<Plan> entrada) {
+        if (porId.size() >= maxEntradas) {
+            long ahora = System.nanoTime();
+            porId.values().removeIf(e -> !e.vigente(ahora));
+            if (porId.size() >= maxEntradas) {
+                porId.clear();
+            }
+        }
+        porId.put(id, entrada);
+    }
+}
@@ -0,0 +1,186 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.dto.EstadoCarrito;
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+import cl.sergiocarocca.cita_ideal_cl.entity.CarritoCompacto;
+import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Servicio del carrito de compras. La sesión guarda un {@link CarritoCompacto}
+ * (ids, cantidades y la fecha elegida para cada plan); los {@link ItemCarrito} con el plan
+ * completo se arman en cada petición desde la caché del catálogo y nunca se guardan en la sesión.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Service
+public class CarritoService {
+
+    /** Nombre del atributo de sesión que contiene el carrito. */
+    public static final String ATRIBUTO_SESION = "carrito";
+
+    private final PlanService planService;
+    private final ReservaService reservaService;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param planService Servicio del catálogo de planes.
+     * @param reservaService Servicio de reservas, para consultar la disponibilidad de las fechas elegidas.
+     */
+    public CarritoService(PlanService planService, ReservaService reservaService) {
+        this.planService = planService;
+        this.reservaService = reservaService;
+    }
+
+    /**
+     * Obtiene el carrito de la sesión, o uno vacío si aún no existe.
+     * * @param session Sesión HTTP del cliente.
+     * @return Carrito compacto de la sesión (sin guardar si es nuevo).
+     */
+    public CarritoCompacto obtener(HttpSession session) {
+        return session.getAttribute(ATRIBUTO_SESION) instanceof CarritoCompacto carrito
+                ? carrito
+                : new CarritoCompacto();
+    }
+
+    /**
+     * Guarda el carrito en la sesión. Debe llamarse después de cada cambio para que
+     * los repositorios de sesión externos (ej: JDBC) persistan la modificación.
+     * * @param session Sesión HTTP del cliente.
+     * @param carrito Carrito modificado.
+     */
+    public void guardar(HttpSession session, CarritoCompacto carrito) {
+        if (carrito.estaVacio()) {
+            session.removeAttribute(ATRIBUTO_SESION);
+        } else {
+            session.setAttribute(ATRIBUTO_SESION, carrito);
+        }
+    }
+
+    /**
+     * Agrega una unidad de un plan activo al carrito de la sesión.
+     * * @param session Sesión HTTP del cliente.
+     * @param planId Identificador del plan.
+     * @return false si el plan no existe o no está activo.
+     */
+    public boolean agregar(HttpSession session, Long planId) {
+        Plan plan = planService.buscarPorId(planId);
+        if (plan == null || !plan.isActivo()) {
+            return false;
+        }
+        CarritoCompacto carrito = obtener(session);
+        carrito.agregar(planId, 1);
+        guardar(session, carrito);
+        return true;
+    }
+
+    /**
+     * Quita un plan del carrito de la sesión.
+     * * @param session Sesión HTTP del cliente.
+     * @param planId Identificador del plan.
+     */
+    public void quitar(HttpSession session, Long planId) {
+        CarritoCompacto carrito = obtener(session);
+        if (carrito.quitar(planId)) {
+            guardar(session, carrito);
+        }
+    }
+
+    /**
+     * Asigna la fecha y hora de la cita de un plan del carrito.
+     * * @param session Sesión HTTP del cliente.
+     * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     * @return false si el plan no está en el carrito o la fecha ya pasó.
+     */
+    public boolean asignarFecha(HttpSession session, Long planId, LocalDateTime fecha) {
+        if (fecha == null || fecha.isBefore(LocalDateTime.now())) {
+            return false;
+        }
+        CarritoCompacto carrito = obtener(session);
+        if (!carrito.asignarFranja(planId, fecha.withSecond(0).withNano(0))) {
+            return false;
+        }
+        guardar(session, carrito);
+        return true;
+    }
+
+    /**
+     * Vacía el carrito de la sesión.
+     * * @param session Sesión HTTP del cliente.
+     */
+    public void vaciar(HttpSession session) {
+        session.removeAttribute(ATRIBUTO_SESION);
+    }
+
+    /**
+     * Arma los ítems del carrito con los datos vigentes de cada plan.
+     * Los planes eliminados u ocultados después de agregarlos se omiten.
+     * * @param carrito Carrito compacto de la sesión.
+     * @return Ítems en el orden en que se agregaron.
+     */
+    public List<ItemCarrito> items(CarritoCompacto carrito) {
+        List<Long> planIds = carrito.planIds();
+        List<ItemCarrito> items = new ArrayList<>(planIds.size());
+        for (Long planId : planIds) {
+            Plan plan = planService.buscarPorId(planId);
+            int cantidad = carrito.cantidad(planId);
+            if (plan != null && plan.isActivo() && cantidad > 0) {
+                ItemCarrito item = new ItemCarrito(plan, cantidad);
+                item.setFechaCita(carrito.franja(planId));
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Suma los subtotales de los ítems.
+     * * @param items Ítems del carrito.
+     * @return Total a pagar.
+     */
+    public Dinero total(List<ItemCarrito> items) {
+        Dinero total = Dinero.CERO;
+        for (ItemCarrito item : items) {
+            total = total.mas(item.getSubtotal());
+        }
+        return total;
+    }
+
+    /**
+     * Resume el carrito de la sesión para la API: ítems vigentes, cantidad, total y la
+     * disponibilidad de la fecha elegida para cada ítem, consultada de una sola vez.
+     * * @param session Sesión HTTP del cliente.
+     * @return Estado actual del carrito.
+     */
+    public EstadoCarrito estado(HttpSession session) {
+        List<ItemCarrito> items = items(obtener(session));
+        List<FranjaPlan> franjas = new ArrayList<>(items.size());
+        for (ItemCarrito item : items) {
+            if (item.getFechaCita() != null) {
+                franjas.add(new FranjaPlan(item.getPlan().getId(), item.getFechaCita()));
+            }
+        }
+        Set<FranjaPlan> ocupadas = franjas.isEmpty() ? Set.of() : reservaService.franjasOcupadas(franjas);
+
+        List<EstadoCarrito.Linea> lineas = new ArrayList<>(items.size());
+        for (ItemCarrito item : items) {
+            Plan plan = item.getPlan();
+            Boolean disponible = item.getFechaCita() == null
+                    ? null
+                    : !ocupadas.contains(new FranjaPlan(plan.getId(), item.getFechaCita()));
+            lineas.add(new EstadoCarrito.Linea(plan.getId(), plan.getNombre(), plan.getPrecio(),
+                    item.getCantidad(), item.getSubtotal(), item.getFechaCita(), disponible));
+        }
+        return new EstadoCarrito(lineas, lineas.size(), total(items));
+    }
+}
@@ -0,0 +1,157 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.CambioEstadoReserva;
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.dto.EstadisticaPeriodo;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.repository.EstadisticasRepository;
+
+/**
+ * Servicio de estadísticas de reservas para el panel de administración.
+ * En lugar de agrupar la tabla de reservas en cada consulta, mantiene un resumen por
+ * plan y día que {@link ReservaService} actualiza en la misma transacción de cada cambio
+ * de estado. Una tarea nocturna lo recalcula desde cero para corregir cualquier desvío
+ * (por ejemplo, cambios de precio o modificaciones hechas directamente en la base).
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Service
+public class EstadisticasService {
+
+    /** Agrupaciones disponibles en el panel y cuántos períodos se muestran por defecto hacia cada lado de hoy. */
+    public enum Periodo {
+        DIA("day", ChronoUnit.DAYS, 30),
+        SEMANA("week", ChronoUnit.WEEKS, 12),
+        MES("month", ChronoUnit.MONTHS, 12);
+
+        private final String unidad;
+        private final ChronoUnit paso;
+        private final int cantidad;
+
+        Periodo(String unidad, ChronoUnit paso, int cantidad) {
+            this.unidad = unidad;
+            this.paso = paso;
+            this.cantidad = cantidad;
+        }
+    }
+
+    private record ClaveDia(Long planId, LocalDate dia) {
+    }
+
+    /** Variación acumulada de los contadores de un (plan, día). */
+    private static final class Variacion {
+        private int pendientes;
+        private int confirmadas;
+        private int canceladas;
+        private long ingresos;
+
+        private void aplicar(EstadoReserva anterior, EstadoReserva nuevo, Dinero precio) {
+            pendientes += variacion(EstadoReserva.PENDIENTE, anterior, nuevo);
+            canceladas += variacion(EstadoReserva.CANCELADA, anterior, nuevo);
+            int confirmadasCambio = variacion(EstadoReserva.CONFIRMADA, anterior, nuevo);
+            if (confirmadasCambio != 0) {
+                confirmadas += confirmadasCambio;
+                ingresos = Math.addExact(ingresos, Math.multiplyExact(precio.pesos(), confirmadasCambio));
+            }
+        }
+
+        private boolean esNula() {
+            return pendientes == 0 && confirmadas == 0 && canceladas == 0;
+        }
+
+        private EstadisticasRepository.Incremento comoIncremento(ClaveDia clave) {
+            return new EstadisticasRepository.Incremento(clave.planId(), clave.dia(),
+                    pendientes, confirmadas, canceladas, new Dinero(ingresos));
+        }
+    }
+
+    private final EstadisticasRepository estadisticasRepository;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param estadisticasRepository Repositorio del resumen diario.
+     */
+    public EstadisticasService(EstadisticasRepository estadisticasRepository) {
+        this.estadisticasRepository = estadisticasRepository;
+    }
+
+    /**
+     * Registra el cambio de estado de una reserva en el resumen.
+     * * @param reserva Reserva afectada (con su plan).
+     * @param estadoAnterior Estado previo, o null si la reserva es nueva.
+     * @param estadoNuevo Estado nuevo, o null si la reserva fue eliminada.
+     */
+    public void registrarCambio(Reserva reserva, EstadoReserva estadoAnterior, EstadoReserva estadoNuevo) {
+        Variacion v = new Variacion();
+        v.aplicar(estadoAnterior, estadoNuevo, reserva.getPlan().getPrecio());
+        if (!v.esNula()) {
+            estadisticasRepository.sumar(reserva.getPlan().getId(), reserva.getFechaCita().toLocalDate(),
+                    v.pendientes, v.confirmadas, v.canceladas, new Dinero(v.ingresos));
+        }
+    }
+
+    /**
+     * Registra un cambio de estado masivo. Las variaciones se agrupan por (plan, día)
+     * y se envían en un solo lote, ordenadas para que dos lotes concurrentes bloqueen
+     * las filas del resumen en el mismo orden.
+     * * @param cambios Reservas modificadas por el UPDATE masivo.
+     */
+    public void registrarCambios(List<CambioEstadoReserva> cambios) {
+        Map<ClaveDia, Variacion> porDia = new TreeMap<>(
+                Comparator.comparing(ClaveDia::planId).thenComparing(ClaveDia::dia));
+        for (CambioEstadoReserva c : cambios) {
+            porDia.computeIfAbsent(new ClaveDia(c.planId(), c.fechaCita().toLocalDate()), k -> new Variacion())
+                  .aplicar(c.anterior(), c.nuevo(), c.precio());
+        }
+        List<EstadisticasRepository.Incremento> incrementos = new ArrayList<>();
+        porDia.forEach((clave, v) -> {
+            if (!v.esNula()) {
+                incrementos.add(v.comoIncremento(clave));
+            }
+        });
+        if (!incrementos.isEmpty()) {
+            estadisticasRepository.sumarTodos(incrementos);
+        }
+    }
+
+    /**
+     * Resumen por período y plan. Como el día es el de la cita, el rango por defecto
+     * abarca tanto períodos pasados como las citas ya agendadas a futuro.
+     * * @param periodo Agrupación (día, semana o mes).
+     * @param desde Primer día del rango, o null para el valor por defecto.
+     * @param hasta Último día del rango, o null para el valor por defecto.
+     * @return Filas del resumen, del período más reciente al más antiguo.
+     */
+    public List<EstadisticaPeriodo> resumen(Periodo periodo, LocalDate desde, LocalDate hasta) {
+        LocalDate hoy = LocalDate.now();
+        return estadisticasRepository.resumen(periodo.unidad,
+                desde != null ? desde : hoy.minus(periodo.cantidad, periodo.paso),
+                hasta != null ? hasta : hoy.plus(periodo.cantidad, periodo.paso));
+    }
+
+    /**
+     * Recalcula el resumen completo desde la tabla de reservas (todas las noches a las 03:30).
+     */
+    @Scheduled(cron = "${citaideal.estadisticas.reconciliacion:0 30 3 * * *}")
+    @Transactional
+    public void reconciliar() {
+        estadisticasRepository.recalcular();
+    }
+
+    private static int variacion(EstadoReserva estado, EstadoReserva anterior, EstadoReserva nuevo) {
+        return (estado == nuevo ? 1 : 0) - (estado == anterior ? 1 : 0);
+    }
+}
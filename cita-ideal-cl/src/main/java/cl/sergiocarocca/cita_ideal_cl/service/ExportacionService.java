@@ -0,0 +1,204 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.Consulta;
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.repository.ConsultaRepository;
+import cl.sergiocarocca.cita_ideal_cl.repository.ReservaRepository;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Servicio de exportación de reservas y consultas a CSV o JSON.
+ * Las filas se leen con un cursor del servidor y se escriben de inmediato en el flujo de
+ * salida; cada entidad se desvincula del contexto de persistencia después de escribirla,
+ * de modo que la memoria usada no depende de la cantidad de registros exportados.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Service
+public class ExportacionService {
+
+    /** Separador de columnas: Excel en configuración regional chilena espera punto y coma. */
+    private static final char SEPARADOR = ';';
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final ReservaRepository reservaRepository;
+    private final ConsultaRepository consultaRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param reservaRepository Repositorio con el flujo de reservas.
+     * @param consultaRepository Repositorio con el flujo de consultas.
+     * @param entityManager Contexto de persistencia del que se desvinculan las filas ya escritas.
+     * @param objectMapper Configuración JSON de la aplicación.
+     */
+    public ExportacionService(ReservaRepository reservaRepository, ConsultaRepository consultaRepository,
+                              EntityManager entityManager, ObjectMapper objectMapper) {
+        this.reservaRepository = reservaRepository;
+        this.consultaRepository = consultaRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe todas las reservas en formato CSV (UTF-8 con BOM para Excel).
+     * * @param salida Flujo de salida de la respuesta HTTP.
+     * @throws IOException Si el cliente cierra la conexión durante la descarga.
+     */
+    @Transactional(readOnly = true)
+    public void exportarReservasCsv(OutputStream salida) throws IOException {
+        Writer csv = escritorCsv(salida);
+        filaCsv(csv, "id", "codigo", "cliente", "email", "telefono", "plan", "fecha_cita", "estado");
+        try (Stream<Reserva> reservas = reservaRepository.streamTodas()) {
+            for (Reserva r : (Iterable<Reserva>) reservas::iterator) {
+                filaCsv(csv, String.valueOf(r.getId()), r.getCodigoSeguimiento(), r.getNombreCliente(),
+                        r.getEmailCliente(), r.getTelefonoCliente(), r.getPlan().getNombre(),
+                        FORMATO_FECHA.format(r.getFechaCita()), r.getEstado().name());
+                entityManager.detach(r);
+            }
+        }
+        csv.flush();
+    }
+
+    /**
+     * Escribe todas las reservas como un arreglo JSON.
+     * * @param salida Flujo de salida de la respuesta HTTP.
+     * @throws IOException Si el cliente cierra la conexión durante la descarga.
+     */
+    @Transactional(readOnly = true)
+    public void exportarReservasJson(OutputStream salida) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8);
+             Stream<Reserva> reservas = reservaRepository.streamTodas()) {
+            json.writeStartArray();
+            for (Reserva r : (Iterable<Reserva>) reservas::iterator) {
+                json.writeStartObject();
+                json.writeNumberField("id", r.getId());
+                json.writeStringField("codigo", r.getCodigoSeguimiento());
+                json.writeStringField("cliente", r.getNombreCliente());
+                json.writeStringField("email", r.getEmailCliente());
+                json.writeStringField("telefono", r.getTelefonoCliente());
+                json.writeNumberField("planId", r.getPlan().getId());
+                json.writeStringField("plan", r.getPlan().getNombre());
+                json.writeStringField("fechaCita", r.getFechaCita().toString());
+                json.writeStringField("estado", r.getEstado().name());
+                json.writeEndObject();
+                entityManager.detach(r);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Escribe todas las consultas de contacto en formato CSV (UTF-8 con BOM para Excel).
+     * * @param salida Flujo de salida de la respuesta HTTP.
+     * @throws IOException Si el cliente cierra la conexión durante la descarga.
+     */
+    @Transactional(readOnly = true)
+    public void exportarConsultasCsv(OutputStream salida) throws IOException {
+        Writer csv = escritorCsv(salida);
+        filaCsv(csv, "id", "fecha_envio", "nombre", "email", "plan", "mensaje");
+        try (Stream<Consulta> consultas = consultaRepository.streamTodas()) {
+            for (Consulta c : (Iterable<Consulta>) consultas::iterator) {
+                filaCsv(csv, String.valueOf(c.getId()),
+                        c.getFechaEnvio() != null ? FORMATO_FECHA.format(c.getFechaEnvio()) : null,
+                        c.getNombre(), c.getEmail(), c.getPlan() != null ? c.getPlan().getNombre() : null,
+                        c.getMensaje());
+                entityManager.detach(c);
+            }
+        }
+        csv.flush();
+    }
+
+    /**
+     * Escribe todas las consultas de contacto como un arreglo JSON.
+     * * @param salida Flujo de salida de la respuesta HTTP.
+     * @throws IOException Si el cliente cierra la conexión durante la descarga.
+     */
+    @Transactional(readOnly = true)
+    public void exportarConsultasJson(OutputStream salida) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8);
+             Stream<Consulta> consultas = consultaRepository.streamTodas()) {
+            json.writeStartArray();
+            for (Consulta c : (Iterable<Consulta>) consultas::iterator) {
+                json.writeStartObject();
+                json.writeNumberField("id", c.getId());
+                json.writeStringField("fechaEnvio", c.getFechaEnvio() != null ? c.getFechaEnvio().toString() : null);
+                json.writeStringField("nombre", c.getNombre());
+                json.writeStringField("email", c.getEmail());
+                if (c.getPlan() != null) {
+                    json.writeNumberField("planId", c.getPlan().getId());
+                    json.writeStringField("plan", c.getPlan().getNombre());
+                }
+                json.writeStringField("mensaje", c.getMensaje());
+                json.writeEndObject();
+                entityManager.detach(c);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private static Writer escritorCsv(OutputStream salida) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 16 * 1024);
+        csv.write('\uFEFF');
+        return csv;
+    }
+
+    private static void filaCsv(Writer csv, String... campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                csv.write(SEPARADOR);
+            }
+            campoCsv(csv, campos[i]);
+        }
+        csv.write("\r\n");
+    }
+
+    /**
+     * Escribe un campo CSV, entre comillas si contiene separadores, comillas o saltos de línea.
+     * Los valores que empiezan como una fórmula (=, +, -, @) se anteponen con un apóstrofo
+     * para que la planilla no los ejecute; los números como "+56 9 1234 5678" se dejan tal cual.
+     */
+    private static void campoCsv(Writer csv, String valor) throws IOException {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        if (esFormula(valor)) {
+            valor = "'" + valor;
+        }
+        boolean comillas = valor.indexOf(SEPARADOR) >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        if (!comillas) {
+            csv.write(valor);
+            return;
+        }
+        csv.write('"');
+        csv.write(valor.replace("\"", "\"\""));
+        csv.write('"');
+    }
+
+    private static boolean esFormula(String valor) {
+        char primero = valor.charAt(0);
+        if (primero != '=' && primero != '+' && primero != '-' && primero != '@') {
+            return false;
+        }
+        return !valor.chars().skip(1).allMatch(c -> Character.isDigit(c) || c == ' ');
+    }
+}
@@ -23,6 +23,7 @@ import cl.sergiocarocca.cita_ideal_cl.repository.FotoRepository;
 public class FotoService {
 
     private final FotoRepository fotoRepository;
+    private final VersionContenido versionContenido;
     
     /** Ruta relativa al proyecto donde se almacenan las imágenes de la galería. */
     private final String carpetaRelativa = "src/main/resources/static/assets/img/galeria/";
@@ -30,9 +31,11 @@ public class FotoService {
     /**
      * Constructor para la inyección de dependencias.
      * * @param fotoRepository Repositorio para la gestión de la tabla de fotos.
+     * @param versionContenido Versión de las páginas públicas, que cambia al modificar la galería.
      */
-    public FotoService(FotoRepository fotoRepository) {
+    public FotoService(FotoRepository fotoRepository, VersionContenido versionContenido) {
         this.fotoRepository = fotoRepository;
+        this.versionContenido = versionContenido;
     }
 
     /**
@@ -49,6 +52,7 @@ public class FotoService {
      */
     public void guardar(Foto foto) {
         fotoRepository.save(foto);
+        versionContenido.incrementar();
     }
 
     /**
@@ -73,6 +77,7 @@ public class FotoService {
                 
                 // 3. Si no hubo error en la E/S, procedemos a borrar el registro de la DB
                 fotoRepository.deleteById(id);
+                versionContenido.incrementar();
                 
             } catch (IOException e) {
                 // Registro del error en consola si falla el acceso al sistema de archivos
@@ -0,0 +1,255 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Índice en memoria de los horarios ocupados por plan y día.
+ * Cada día de un plan se representa con un único {@code long} donde cada bit
+ * corresponde a una franja de 30 minutos (48 franjas por día). De esta forma la
+ * validación de disponibilidad se resuelve sin consultar la base de datos.
+ * <p>
+ * El índice solo cubre fechas desde el día en que fue precargado y horarios
+ * alineados a la franja (minuto 0 o 30, sin segundos). Para cualquier otra
+ * consulta {@link #cubre(LocalDateTime)} retorna false y el llamador debe
+ * recurrir al repositorio. Los meses con alguna reserva no alineada tampoco se
+ * responden desde memoria ({@link #cubreMes(YearMonth)}), para que su mapa mensual
+ * coincida con el que arma la consulta a la base de datos.
+ * <p>
+ * Mientras se precarga, las marcas y liberaciones que llegan (reservas confirmadas o
+ * canceladas después de la consulta de precarga) se guardan y se aplican al terminar,
+ * antes de que {@link #cubre(LocalDateTime)} vuelva a ser true.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class IndiceDisponibilidad {
+
+    /** Duración en minutos de cada franja representada por un bit. */
+    public static final int MINUTOS_POR_FRANJA = 30;
+
+    /** Clave compuesta por plan y día (epoch day). */
+    private record ClaveDia(long planId, long dia) {
+    }
+
+    /** Marca (true) o liberación (false) recibida durante una precarga. */
+    private record Cambio(Long planId, LocalDateTime fecha, boolean ocupada) {
+    }
+
+    private final ConcurrentHashMap<ClaveDia, Long> ocupacion = new ConcurrentHashMap<>();
+
+    /** Meses con al menos una reserva fuera de franja; se dejan a la base de datos. */
+    private final Set<YearMonth> mesesNoAlineados = ConcurrentHashMap.newKeySet();
+
+    /** Primer día cubierto por el índice; null mientras no se haya precargado. */
+    private volatile LocalDate desde;
+
+    /** Cambios recibidos durante la precarga en curso; null cuando no se está precargando. */
+    private volatile List<Cambio> pendientes;
+
+    /**
+     * Deja de responder desde memoria y comienza a guardar los cambios que lleguen hasta
+     * terminar {@link #precargar}. Debe llamarse antes de ejecutar la consulta de precarga,
+     * para que ninguna reserva confirmada después de ella se pierda.
+     */
+    public synchronized void iniciarPrecarga() {
+        this.desde = null;
+        this.pendientes = new ArrayList<>();
+    }
+
+    /**
+     * Reemplaza el contenido del índice con las reservas activas entregadas y aplica los
+     * cambios recibidos desde {@link #iniciarPrecarga()}. Si no se llamó a ese método, la
+     * precarga comienza aquí.
+     * * @param reservas Pares (planId, fechaCita) de reservas no canceladas desde {@code inicio}.
+     * @param inicio Primer día que el índice considera completo.
+     */
+    public void precargar(Iterable<Object[]> reservas, LocalDate inicio) {
+        synchronized (this) {
+            if (pendientes == null) {
+                iniciarPrecarga();
+            }
+        }
+        ocupacion.clear();
+        mesesNoAlineados.clear();
+        for (Object[] fila : reservas) {
+            LocalDateTime fecha = (LocalDateTime) fila[1];
+            if (alineada(fecha)) {
+                marcarBit((Long) fila[0], fecha);
+            } else {
+                mesesNoAlineados.add(YearMonth.from(fecha));
+            }
+        }
+        // Los cambios que lleguen mientras se aplican los pendientes esperan el monitor,
+        // así se conservan en el orden en que ocurrieron
+        synchronized (this) {
+            for (Cambio cambio : pendientes) {
+                if (cambio.fecha().toLocalDate().isBefore(inicio)) {
+                    continue;
+                }
+                if (!alineada(cambio.fecha())) {
+                    if (cambio.ocupada()) {
+                        mesesNoAlineados.add(YearMonth.from(cambio.fecha()));
+                    }
+                } else if (cambio.ocupada()) {
+                    marcarBit(cambio.planId(), cambio.fecha());
+                } else {
+                    liberarBit(cambio.planId(), cambio.fecha());
+                }
+            }
+            this.desde = inicio;
+            this.pendientes = null;
+        }
+    }
+
+    /**
+     * Indica si el índice puede responder con certeza para la fecha entregada.
+     * * @param fecha Fecha y hora consultada.
+     * @return true si la fecha está dentro del horizonte precargado y alineada a una franja.
+     */
+    public boolean cubre(LocalDateTime fecha) {
+        LocalDate inicio = desde;
+        return inicio != null && fecha != null && !fecha.toLocalDate().isBefore(inicio) && alineada(fecha);
+    }
+
+    /**
+     * Consulta si la franja está ocupada. Solo es confiable cuando {@link #cubre} es true.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     * @return true si existe una reserva activa en esa franja.
+     */
+    public boolean estaOcupado(Long planId, LocalDateTime fecha) {
+        Long bits = ocupacion.get(new ClaveDia(planId, fecha.toLocalDate().toEpochDay()));
+        return bits != null && (bits & bit(fecha)) != 0;
+    }
+
+    /**
+     * Indica si el índice contiene todos los días del mes entregado. Un mes con reservas
+     * no alineadas no se cubre aunque esté en el horizonte: el índice no las guarda.
+     * * @param mes Mes consultado.
+     * @return true si el mes completo está dentro del horizonte precargado y todas sus
+     *         reservas están alineadas a una franja.
+     */
+    public boolean cubreMes(YearMonth mes) {
+        LocalDate inicio = desde;
+        return inicio != null && !mes.atDay(1).isBefore(inicio) && !mesesNoAlineados.contains(mes);
+    }
+
+    /**
+     * Construye el mapa de ocupación de un mes: un {@code long} por día, donde el
+     * bit {@code i} representa la franja que comienza en el minuto {@code i * 30}.
+     * Solo es confiable cuando {@link #cubreMes} es true.
+     * * @param planId Identificador del plan.
+     * @param mes Mes consultado.
+     * @return Arreglo con un elemento por día del mes (índice 0 = día 1).
+     */
+    public long[] ocupacionMensual(Long planId, YearMonth mes) {
+        long[] dias = new long[mes.lengthOfMonth()];
+        long primerDia = mes.atDay(1).toEpochDay();
+        for (int i = 0; i < dias.length; i++) {
+            Long bits = ocupacion.get(new ClaveDia(planId, primerDia + i));
+            dias[i] = bits != null ? bits : 0L;
+        }
+        return dias;
+    }
+
+    /**
+     * Marca la franja como ocupada tras persistir o confirmar una reserva. Si el horario
+     * no está alineado, su mes deja de responderse desde el índice.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     */
+    public void marcar(Long planId, LocalDateTime fecha) {
+        if (enPrecarga(new Cambio(planId, fecha, true))) {
+            return;
+        }
+        if (cubre(fecha)) {
+            marcarBit(planId, fecha);
+        } else if (!alineada(fecha)) {
+            mesesNoAlineados.add(YearMonth.from(fecha));
+        }
+    }
+
+    /**
+     * Reclama la franja de forma atómica: solo un llamador puede obtenerla aunque varios
+     * lo intenten al mismo tiempo. La operación se serializa únicamente sobre la clave
+     * (plan, día), por lo que reservas de otros planes o días no compiten entre sí.
+     * Solo debe usarse cuando {@link #cubre} es true.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     * @return true si la franja estaba libre y quedó reclamada por este llamador.
+     */
+    public boolean reclamar(Long planId, LocalDateTime fecha) {
+        long bit = bit(fecha);
+        boolean[] reclamada = { false };
+        ocupacion.compute(new ClaveDia(planId, fecha.toLocalDate().toEpochDay()), (clave, bits) -> {
+            long actual = bits != null ? bits : 0L;
+            if ((actual & bit) != 0) {
+                return bits;
+            }
+            reclamada[0] = true;
+            return actual | bit;
+        });
+        return reclamada[0];
+    }
+
+    /**
+     * Libera la franja tras eliminar o cancelar una reserva.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     */
+    public void liberar(Long planId, LocalDateTime fecha) {
+        if (!enPrecarga(new Cambio(planId, fecha, false)) && cubre(fecha)) {
+            liberarBit(planId, fecha);
+        }
+    }
+
+    /**
+     * Guarda el cambio si hay una precarga en curso.
+     * * @return true si el cambio quedó pendiente y se aplicará al terminar la precarga.
+     */
+    private boolean enPrecarga(Cambio cambio) {
+        if (pendientes == null) {
+            return false;
+        }
+        synchronized (this) {
+            List<Cambio> actuales = pendientes;
+            if (actuales == null) {
+                return false;
+            }
+            actuales.add(cambio);
+            return true;
+        }
+    }
+
+    private void liberarBit(Long planId, LocalDateTime fecha) {
+        long mascara = ~bit(fecha);
+        ocupacion.computeIfPresent(new ClaveDia(planId, fecha.toLocalDate().toEpochDay()),
+                (clave, bits) -> (bits & mascara) == 0 ? null : bits & mascara);
+    }
+
+    private void marcarBit(Long planId, LocalDateTime fecha) {
+        ocupacion.merge(new ClaveDia(planId, fecha.toLocalDate().toEpochDay()), bit(fecha), (a, b) -> a | b);
+    }
+
+    private static boolean alineada(LocalDateTime fecha) {
+        return fecha.getMinute() % MINUTOS_POR_FRANJA == 0 && fecha.getSecond() == 0 && fecha.getNano() == 0;
+    }
+
+    /**
+     * Calcula el bit que representa la franja de la fecha entregada dentro de su día.
+     * Los horarios no alineados se asignan a la franja en que comienzan.
+     * * @param fecha Fecha y hora de la cita.
+     * @return Máscara con un único bit encendido.
+     */
+    public static long bit(LocalDateTime fecha) {
+        return 1L << ((fecha.getHour() * 60 + fecha.getMinute()) / MINUTOS_POR_FRANJA);
+    }
+}
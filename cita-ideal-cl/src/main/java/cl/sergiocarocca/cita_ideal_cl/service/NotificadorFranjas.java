@@ -0,0 +1,139 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Difunde por Server-Sent Events los cambios de ocupación de las franjas horarias
+ * a todos los formularios de reserva abiertos para un plan.
+ * Cada suscripción es un {@link SseEmitter} (servlet asíncrono), por lo que una
+ * conexión inactiva no retiene ningún hilo de Tomcat; los envíos se realizan en
+ * hilos virtuales para no bloquear la transacción que originó el cambio.
+ * <p>
+ * Cada conexión tiene su propia cola: sus eventos se envían de a uno y en el orden en
+ * que se publicaron, así un "tomada" seguido de un "liberada" nunca llega invertido.
+ * Al conectarse (también cuando el navegador se reconecta solo) el primer evento es
+ * {@value #EVENTO_SINCRONIZAR}, que indica al formulario que vuelva a pedir la ocupación
+ * completa, porque pudo haber perdido cambios mientras no estaba conectado.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class NotificadorFranjas {
+
+    /** Tiempo máximo de una conexión; al expirar el navegador se reconecta solo. */
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+
+    /** Primer evento de cada conexión: el cliente debe descartar la ocupación que tenga. */
+    static final String EVENTO_SINCRONIZAR = "sincronizar";
+
+    /** Conexión de un formulario con su cola de eventos pendientes de envío. */
+    private final class Suscripcion {
+        private final SseEmitter emisor;
+        private final Set<Suscripcion> delPlan;
+        private final Queue<SseEmitter.SseEventBuilder> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+
+        private Suscripcion(SseEmitter emisor, Set<Suscripcion> delPlan) {
+            this.emisor = emisor;
+            this.delPlan = delPlan;
+        }
+
+        /** Encola el evento y, si nadie está enviando por esta conexión, inicia el envío. */
+        private void encolar(SseEmitter.SseEventBuilder evento) {
+            pendientes.add(evento);
+            if (enviando.compareAndSet(false, true)) {
+                envios.execute(this::vaciar);
+            }
+        }
+
+        private void vaciar() {
+            do {
+                SseEmitter.SseEventBuilder evento;
+                while ((evento = pendientes.poll()) != null) {
+                    try {
+                        emisor.send(evento);
+                    } catch (IOException | IllegalStateException e) {
+                        pendientes.clear();
+                        delPlan.remove(this);
+                        emisor.completeWithError(e);
+                        return;
+                    }
+                }
+                enviando.set(false);
+                // Un evento encolado justo después del último poll queda a cargo de este hilo
+            } while (!pendientes.isEmpty() && enviando.compareAndSet(false, true));
+        }
+    }
+
+    private final Map<Long, Set<Suscripcion>> suscriptores = new ConcurrentHashMap<>();
+
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Registra un nuevo suscriptor para los eventos de un plan.
+     * * @param planId Identificador del plan que el formulario está mostrando.
+     * @return El emisor SSE asociado a la conexión.
+     */
+    public SseEmitter suscribir(Long planId) {
+        SseEmitter emisor = new SseEmitter(TIMEOUT_MS);
+        Set<Suscripcion> delPlan = suscriptores.computeIfAbsent(planId, id -> ConcurrentHashMap.newKeySet());
+        Suscripcion suscripcion = new Suscripcion(emisor, delPlan);
+        // Se encola antes de registrarla para que ningún cambio se envíe antes que la sincronización
+        suscripcion.encolar(SseEmitter.event().name(EVENTO_SINCRONIZAR).data(Map.of("planId", planId)));
+        delPlan.add(suscripcion);
+
+        Runnable quitar = () -> delPlan.remove(suscripcion);
+        emisor.onCompletion(quitar);
+        emisor.onTimeout(quitar);
+        emisor.onError(e -> quitar.run());
+        return emisor;
+    }
+
+    /**
+     * Publica que una franja fue tomada o liberada.
+     * * @param planId Identificador del plan afectado.
+     * @param fecha Fecha y hora de la franja.
+     * @param ocupada true si la franja quedó tomada, false si quedó libre.
+     */
+    public void publicar(Long planId, LocalDateTime fecha, boolean ocupada) {
+        Set<Suscripcion> delPlan = suscriptores.get(planId);
+        if (delPlan == null || delPlan.isEmpty()) {
+            return;
+        }
+        Map<String, Object> datos = Map.of("fecha", fecha.toString(), "ocupada", ocupada);
+        for (Suscripcion suscripcion : delPlan) {
+            suscripcion.encolar(SseEmitter.event().name("franja").data(datos));
+        }
+    }
+
+    /**
+     * Cantidad de conexiones abiertas, útil para monitoreo.
+     * * @return Total de suscriptores activos considerando todos los planes.
+     */
+    public int contarSuscriptores() {
+        return suscriptores.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Cierra las conexiones y el ejecutor al detener la aplicación.
+     */
+    @PreDestroy
+    public void cerrar() {
+        suscriptores.values().forEach(delPlan -> delPlan.forEach(s -> s.emisor.complete()));
+        envios.shutdown();
+    }
+}
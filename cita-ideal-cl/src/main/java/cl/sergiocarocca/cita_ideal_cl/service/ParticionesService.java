@@ -0,0 +1,86 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import cl.sergiocarocca.cita_ideal_cl.repository.ParticionesRepository;
+
+/**
+ * Mantenimiento de las particiones mensuales de la tabla de reservas.
+ * Al iniciar la aplicación y cada noche se asegura de que existan las particiones de
+ * los próximos meses (las citas sin partición propia caen en {@code reservas_default})
+ * y archiva las de los meses que superan el período de retención.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Service
+public class ParticionesService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesService.class);
+
+    private final ParticionesRepository particionesRepository;
+    private final int mesesFuturos;
+    private final int mesesRetencion;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param particionesRepository Operaciones DDL sobre las particiones.
+     * @param mesesFuturos Cantidad de meses posteriores al actual que deben tener partición.
+     * @param mesesRetencion Meses anteriores al actual que se conservan en línea (0 para no archivar nunca).
+     */
+    public ParticionesService(ParticionesRepository particionesRepository,
+                              @Value("${citaideal.reservas.particiones.meses-futuros:12}") int mesesFuturos,
+                              @Value("${citaideal.reservas.particiones.meses-retencion:24}") int mesesRetencion) {
+        this.particionesRepository = particionesRepository;
+        this.mesesFuturos = mesesFuturos;
+        this.mesesRetencion = mesesRetencion;
+    }
+
+    /**
+     * Crea las particiones faltantes y archiva las vencidas (todas las noches a las 03:00).
+     * Todo corre en una transacción que toma el bloqueo consultivo del mantenimiento: si
+     * otra instancia ya lo está haciendo, esta no hace nada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${citaideal.reservas.particiones.mantenimiento:0 0 3 * * *}")
+    @Transactional
+    public void mantener() {
+        if (!particionesRepository.bloquearMantenimiento()) {
+            log.info("Mantenimiento de particiones en curso en otra instancia; se omite.");
+            return;
+        }
+        YearMonth actual = YearMonth.now();
+        List<YearMonth> existentes = particionesRepository.mesesParticionados();
+        Set<YearMonth> particionados = new HashSet<>(existentes);
+
+        for (int i = 0; i <= mesesFuturos; i++) {
+            YearMonth mes = actual.plusMonths(i);
+            if (!particionados.contains(mes)) {
+                int trasladadas = particionesRepository.crearParticion(mes);
+                log.info("Partición de reservas {} creada ({} reservas trasladadas desde reservas_default).",
+                        mes, trasladadas);
+            }
+        }
+
+        if (mesesRetencion > 0) {
+            YearMonth limite = actual.minusMonths(mesesRetencion);
+            for (YearMonth mes : existentes) {
+                if (mes.isBefore(limite)) {
+                    particionesRepository.archivarParticion(mes);
+                    log.info("Partición de reservas {} archivada en el esquema 'archivo'.", mes);
+                }
+            }
+        }
+    }
+}
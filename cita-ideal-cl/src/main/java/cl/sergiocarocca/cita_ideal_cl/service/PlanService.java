@@ -4,12 +4,22 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.CatalogoSerializado;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanPublico;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
 import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+import cl.sergiocarocca.cita_ideal_cl.repository.BusquedaPlanRepository;
 import cl.sergiocarocca.cita_ideal_cl.repository.PlanRepository;
 
 /**
@@ -25,16 +35,32 @@ public class PlanService {
     @Autowired
     private PlanRepository planRepository;
 
+    @Autowired
+    private BusquedaPlanRepository busquedaPlanRepository;
+
+    @Autowired
+    private CachePlanes cachePlanes;
+
+    @Autowired
+    private VersionContenido versionContenido;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** Máximo de resultados de una búsqueda en el catálogo. */
+    private static final int MAX_RESULTADOS_BUSQUEDA = 30;
+
     /** Ruta física donde se almacenan las imágenes de los planes en el servidor. */
     private final String carpetaPlanes = "src/main/resources/static/assets/img/planes/";
 
     /**
-     * Busca un plan específico por su identificador único.
+     * Busca un plan específico por su identificador único, usando la caché del catálogo.
+     * El plan devuelto es compartido: para modificarlo se debe volver a leer del repositorio.
      * * @param id Identificador del plan.
      * @return El objeto {@link Plan} encontrado o null si no existe.
      */
     public Plan buscarPorId(Long id) {
-        return planRepository.findById(id).orElse(null);
+        return cachePlanes.porId(id, () -> planRepository.findById(id).orElse(null));
     }
 	
     /**
@@ -43,6 +69,7 @@ public class PlanService {
      */
     public void guardar(Plan plan) {
         planRepository.save(plan);
+        catalogoModificado(plan.getId());
     }
 
     /**
@@ -52,7 +79,7 @@ public class PlanService {
      * * @param id Identificador del plan a eliminar.
      */
     public void eliminar(Long id) {
-        Plan plan = buscarPorId(id);
+        Plan plan = planRepository.findById(id).orElse(null);
         
         if (plan != null) {
             // Solo intentamos borrar el archivo si imagenUrl no es nulo ni está vacío
@@ -71,6 +98,7 @@ public class PlanService {
             
             // Finalmente borramos de la base de datos
             planRepository.deleteById(id);
+            catalogoModificado(id);
         }
     }
 
@@ -88,10 +116,11 @@ public class PlanService {
      * * @param id Identificador del plan a ocultar.
      */
     public void ocultarPlan(Long id) {
-        Plan plan = buscarPorId(id);
+        Plan plan = planRepository.findById(id).orElse(null);
         if (plan != null) {
             plan.setActivo(false);
             planRepository.save(plan);
+            catalogoModificado(id);
         }
     }
 
@@ -100,21 +129,60 @@ public class PlanService {
      * * @param id Identificador del plan a activar.
      */
     public void activarPlan(Long id) {
-        Plan plan = buscarPorId(id);
+        Plan plan = planRepository.findById(id).orElse(null);
         if (plan != null) {
             plan.setActivo(true);
             planRepository.save(plan);
+            catalogoModificado(id);
+        }
+    }
+
+    /**
+     * Retorna el resumen de los planes que tienen el estado de activo habilitado.
+     * Utilizado para los listados de la vista de clientes finales; se sirve desde la caché
+     * del catálogo. El detalle y la reserva usan la entidad completa de {@link #buscarPorId(Long)}.
+     * * @return Lista inmutable de resúmenes de planes visibles al público.
+     */
+    public List<PlanResumen> listarPlanesActivos() {
+        return cachePlanes.activos(planRepository::listarResumenActivos);
+    }
+
+    /**
+     * Busca planes activos por palabras de su nombre o descripción, ordenados por relevancia.
+     * La búsqueda ignora tildes y mayúsculas y reconoce plurales y variaciones en español.
+     * * @param texto Palabras ingresadas por el cliente.
+     * @return Resúmenes de los planes encontrados; vacío si el texto no tiene palabras buscables.
+     */
+    public List<PlanResumen> buscar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
         }
+        return busquedaPlanRepository.buscar(texto.strip(), MAX_RESULTADOS_BUSQUEDA);
     }
 
     /**
-     * Filtra y retorna únicamente los planes que tienen el estado de activo habilitado.
-     * Utilizado principalmente para la vista de clientes finales.
-     * * @return Lista de planes visibles al público.
+     * Retorna el catálogo público en JSON para {@code /api/planes}, con la descripción
+     * completa de cada plan ({@link PlanPublico}). Se serializa una sola vez por cada
+     * cambio del catálogo. El ETag es solo un resumen del contenido: todas las
+     * instancias y reinicios entregan el mismo ETag para el mismo catálogo.
+     * * @return JSON de los planes activos y su ETag.
      */
-    public List<Plan> listarPlanesActivos() {
-        return planRepository.findAll().stream()
-                             .filter(p -> p.isActivo())
-                             .toList();
+    public CatalogoSerializado catalogoSerializado() {
+        return cachePlanes.serializado(() -> {
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(planRepository.listarPublicosActivos());
+                byte[] resumen = MessageDigest.getInstance("SHA-256").digest(json);
+                String etag = "\"" + HexFormat.of().formatHex(resumen, 0, 16) + "\"";
+                return new CatalogoSerializado(json, etag);
+            } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException("No se pudo serializar el catálogo de planes", e);
+            }
+        });
+    }
+
+    /** Descarta las copias en caché del plan modificado y de las páginas públicas que lo muestran. */
+    private void catalogoModificado(Long id) {
+        cachePlanes.invalidar(id);
+        versionContenido.incrementar();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.RecordatorioPendiente;
+import cl.sergiocarocca.cita_ideal_cl.repository.RecordatorioRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Despachador de recordatorios por correo 24 horas y 2 horas antes de cada cita.
+ * En cada ejecución recorre, en páginas por (fecha_cita, id), solo las reservas cuya
+ * hora de aviso cayó dentro de la última ventana de tolerancia; reclama cada página en
+ * la tabla {@code recordatorios_enviados} con una sola sentencia y envía los correos
+ * en hilos virtuales, con un máximo de envíos simultáneos hacia el servidor SMTP.
+ * Como el reclamo queda registrado, un reinicio no repite los correos ya entregados.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Service
+public class RecordatorioService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordatorioService.class);
+
+    /** Tipos de recordatorio: código persistido, anticipación respecto de la cita y asunto del correo. */
+    public enum Tipo {
+        DIA_ANTES((short) 0, Duration.ofHours(24), "Recordatorio: tu cita en CitaIdeal.cl es mañana"),
+        DOS_HORAS_ANTES((short) 1, Duration.ofHours(2), "Tu cita en CitaIdeal.cl es en 2 horas");
+
+        private final short codigo;
+        private final Duration anticipacion;
+        private final String asunto;
+
+        Tipo(short codigo, Duration anticipacion, String asunto) {
+            this.codigo = codigo;
+            this.anticipacion = anticipacion;
+            this.asunto = asunto;
+        }
+    }
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    /** Días que se conserva el registro de un recordatorio después de la cita. */
+    private static final int DIAS_REGISTRO = 7;
+
+    private final RecordatorioRepository recordatorioRepository;
+    private final JavaMailSender mailSender;
+    private final String remitente;
+    private final boolean habilitado;
+    private final int tamanoLote;
+    private final int maxIntentos;
+    private final Duration tolerancia;
+    private final Duration abandono;
+
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore enviosSimultaneos;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param recordatorioRepository Registro del estado de cada recordatorio.
+     * @param mailSender Cliente SMTP configurado con {@code spring.mail.*}.
+     * @param remitente Dirección desde la que se envían los recordatorios.
+     * @param habilitado false para desactivar el envío programado.
+     * @param tamanoLote Reservas por página.
+     * @param concurrencia Máximo de correos enviándose a la vez.
+     * @param maxIntentos Intentos antes de abandonar un recordatorio fallido.
+     * @param tolerancia Atraso máximo con el que todavía se envía un recordatorio (ej: tras una caída).
+     * @param abandono Tiempo tras el cual un recordatorio en ENVIANDO se considera abandonado.
+     */
+    public RecordatorioService(RecordatorioRepository recordatorioRepository, JavaMailSender mailSender,
+                               @Value("${citaideal.recordatorios.remitente:no-responder@tucitaideal.cl}") String remitente,
+                               @Value("${citaideal.recordatorios.habilitado:true}") boolean habilitado,
+                               @Value("${citaideal.recordatorios.tamano-lote:200}") int tamanoLote,
+                               @Value("${citaideal.recordatorios.concurrencia:8}") int concurrencia,
+                               @Value("${citaideal.recordatorios.max-intentos:3}") int maxIntentos,
+                               @Value("${citaideal.recordatorios.tolerancia:1h}") Duration tolerancia,
+                               @Value("${citaideal.recordatorios.abandono:10m}") Duration abandono) {
+        this.recordatorioRepository = recordatorioRepository;
+        this.mailSender = mailSender;
+        this.remitente = remitente;
+        this.habilitado = habilitado;
+        this.tamanoLote = tamanoLote;
+        this.maxIntentos = maxIntentos;
+        this.tolerancia = tolerancia;
+        this.abandono = abandono;
+        this.enviosSimultaneos = new Semaphore(concurrencia);
+    }
+
+    /**
+     * Ejecución periódica del despachador (por defecto cada minuto, contado desde el fin de la anterior).
+     */
+    @Scheduled(fixedDelayString = "${citaideal.recordatorios.intervalo-ms:60000}")
+    public void despacharProgramado() {
+        if (habilitado) {
+            despachar();
+        }
+    }
+
+    /**
+     * Envía todos los recordatorios vencidos de ambos tipos.
+     * * @return Cantidad de correos entregados al servidor SMTP.
+     */
+    public int despachar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int enviados = 0;
+        for (Tipo tipo : Tipo.values()) {
+            enviados += despachar(tipo, ahora);
+        }
+        return enviados;
+    }
+
+    /**
+     * Elimina el registro de recordatorios de citas ya pasadas (todas las noches a las 04:15).
+     */
+    @Scheduled(cron = "${citaideal.recordatorios.limpieza:0 15 4 * * *}")
+    public void purgar() {
+        recordatorioRepository.purgar(LocalDateTime.now().minusDays(DIAS_REGISTRO));
+    }
+
+    @PreDestroy
+    void cerrar() {
+        hilos.shutdown();
+    }
+
+    /**
+     * Un recordatorio vence cuando faltan {@code anticipacion} para la cita; se envía si
+     * venció hace menos de {@code tolerancia}. Por eso la ventana de citas a revisar es
+     * (ahora + anticipación - tolerancia, ahora + anticipación].
+     */
+    private int despachar(Tipo tipo, LocalDateTime ahora) {
+        LocalDateTime hasta = ahora.plus(tipo.anticipacion);
+        LocalDateTime desde = max(hasta.minus(tolerancia), ahora);
+        LocalDateTime abandonadoAntesDe = ahora.minus(abandono);
+
+        int enviados = 0;
+        LocalDateTime despuesFecha = desde;
+        long despuesId = 0;
+        List<RecordatorioPendiente> pagina;
+        do {
+            pagina = recordatorioRepository.buscarPendientes(tipo.codigo, despuesFecha, despuesId, hasta,
+                    maxIntentos, abandonadoAntesDe, tamanoLote);
+            if (pagina.isEmpty()) {
+                break;
+            }
+            RecordatorioPendiente ultimo = pagina.get(pagina.size() - 1);
+            despuesFecha = ultimo.fechaCita();
+            despuesId = ultimo.reservaId();
+
+            Set<Long> reclamados = recordatorioRepository.reclamar(tipo.codigo, pagina, LocalDateTime.now(),
+                    maxIntentos, abandonadoAntesDe);
+            List<RecordatorioPendiente> propios = pagina.stream()
+                    .filter(r -> reclamados.contains(r.reservaId()))
+                    .toList();
+            enviados += enviarPagina(tipo, propios);
+        } while (pagina.size() == tamanoLote);
+        return enviados;
+    }
+
+    /**
+     * Envía los correos de una página en paralelo y registra el resultado de todos juntos.
+     */
+    private int enviarPagina(Tipo tipo, List<RecordatorioPendiente> pendientes) {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        List<Future<Boolean>> envios = new ArrayList<>(pendientes.size());
+        for (RecordatorioPendiente pendiente : pendientes) {
+            envios.add(hilos.submit(() -> enviar(tipo, pendiente)));
+        }
+
+        List<Long> enviados = new ArrayList<>();
+        List<Long> fallidos = new ArrayList<>();
+        for (int i = 0; i < pendientes.size(); i++) {
+            Long reservaId = pendientes.get(i).reservaId();
+            if (resultado(envios.get(i))) {
+                enviados.add(reservaId);
+            } else {
+                fallidos.add(reservaId);
+            }
+        }
+        recordatorioRepository.registrarResultado(tipo.codigo, enviados, fallidos, LocalDateTime.now());
+        return enviados.size();
+    }
+
+    private boolean enviar(Tipo tipo, RecordatorioPendiente pendiente) throws InterruptedException {
+        enviosSimultaneos.acquire();
+        try {
+            mailSender.send(mensaje(tipo, pendiente));
+            return true;
+        } catch (MailException e) {
+            log.warn("No se pudo enviar el recordatorio {} de la reserva {}.", tipo, pendiente.reservaId(), e);
+            return false;
+        } finally {
+            enviosSimultaneos.release();
+        }
+    }
+
+    private SimpleMailMessage mensaje(Tipo tipo, RecordatorioPendiente pendiente) {
+        SimpleMailMessage correo = new SimpleMailMessage();
+        correo.setFrom(remitente);
+        correo.setTo(pendiente.emailCliente());
+        correo.setSubject(tipo.asunto);
+        correo.setText("Hola " + pendiente.nombreCliente() + ",\n\n"
+                + "Te recordamos tu experiencia \"" + pendiente.plan() + "\" el "
+                + FORMATO_FECHA.format(pendiente.fechaCita()) + " a las "
+                + FORMATO_HORA.format(pendiente.fechaCita()) + " hrs.\n"
+                + "Código de reserva: " + pendiente.codigoSeguimiento() + "\n\n"
+                + "¡Te esperamos!\nEquipo CitaIdeal.cl");
+        return correo;
+    }
+
+    private static boolean resultado(Future<Boolean> envio) {
+        try {
+            return envio.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
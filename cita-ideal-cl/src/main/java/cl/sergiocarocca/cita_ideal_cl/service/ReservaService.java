@@ -1,14 +1,37 @@
 package cl.sergiocarocca.cita_ideal_cl.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import cl.sergiocarocca.cita_ideal_cl.dto.CambioEstadoReserva;
+import cl.sergiocarocca.cita_ideal_cl.dto.FiltroReservas;
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+import cl.sergiocarocca.cita_ideal_cl.dto.PaginaReservas;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
 import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
 import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.repository.ReservaBatchRepository;
+import cl.sergiocarocca.cita_ideal_cl.repository.ReservaEspecificaciones;
 import cl.sergiocarocca.cita_ideal_cl.repository.ReservaRepository;
 import cl.sergiocarocca.cita_ideal_cl.util.GeneradorCodigo;
 import jakarta.transaction.Transactional;
@@ -23,92 +46,309 @@ import jakarta.transaction.Transactional;
 @Service
 public class ReservaService {
 
+    /** Mensaje utilizado por el flujo de "horario no disponible" del formulario de reserva. */
+    private static final String HORARIO_NO_DISPONIBLE =
+            "Lo sentimos, este horario ya no está disponible para este plan.";
+
+    /** Reservas por página en el panel administrativo. */
+    private static final int TAMANO_PAGINA = 50;
+
     @Autowired
     private ReservaRepository reservaRepository;
 
+    @Autowired
+    private ReservaBatchRepository reservaBatchRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    private NotificadorFranjas notificadorFranjas;
+
+    @Autowired
+    private CacheDisponibilidad cacheDisponibilidad;
+
+    @Autowired
+    private RetencionFranjas retencionFranjas;
+
+    @Autowired
+    private GeneradorCodigo generadorCodigo;
+
+    @Autowired
+    private EstadisticasService estadisticasService;
+
+    /**
+     * Precarga el índice de disponibilidad con las reservas activas desde el primer
+     * día del mes en curso una vez que la aplicación terminó de iniciar. El índice
+     * empieza a guardar los cambios antes de la consulta, así las reservas confirmadas
+     * mientras se lee no quedan fuera. Se repite periódicamente para recoger las reservas
+     * creadas o canceladas por otros nodos, que este índice no ve.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${citaideal.indice.resincronizacion-ms:60000}",
+               fixedDelayString = "${citaideal.indice.resincronizacion-ms:60000}")
+    @Transactional
+    public void precargarIndice() {
+        LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+        indiceDisponibilidad.iniciarPrecarga();
+        try (Stream<Object[]> franjas = reservaRepository.findFranjasOcupadasDesde(inicioMes.atStartOfDay())) {
+            indiceDisponibilidad.precargar(franjas::iterator, inicioMes);
+        }
+    }
+
     /**
      * Crea una reserva individual previa validación de disponibilidad horaria.
+     * La franja se reclama de forma atómica en el {@link IndiceDisponibilidad}, de modo que
+     * dos clientes concurrentes del mismo nodo no pueden pasar ambos la validación. El índice
+     * es solo una pista: si la franja ya figura ocupada se confirma con la base de datos, ya
+     * que la marca puede venir de una reserva cancelada en otro nodo. La garantía la da el
+     * índice único parcial {@code ux_reservas_plan_fecha_activa}, que rechaza en la base de
+     * datos cualquier doble agendamiento (por ejemplo, desde otro nodo).
      * * @param reserva Objeto reserva con los datos del cliente y el plan solicitado.
      * @return La reserva persistida en la base de datos.
-     * @throws Exception Si el horario ya se encuentra ocupado por una reserva confirmada.
+     * @throws RuntimeException Si el horario ya se encuentra ocupado por otra reserva activa.
      */
     @Transactional
     public Reserva crearReserva(Reserva reserva) {
-        // 1. Validar disponibilidad
-        boolean ocupado = reservaRepository.existeReservaEnEsaFecha(
-                reserva.getPlan().getId(), 
-                reserva.getFechaCita()
-        );
+        return crearReserva(reserva, null);
+    }
+
+    /**
+     * Crea una reserva individual respetando las retenciones de pago vigentes.
+     * Si la franja está retenida por otro cliente se rechaza; si la retención pertenece
+     * al token entregado, se libera una vez confirmada la reserva.
+     * * @param reserva Objeto reserva con los datos del cliente y el plan solicitado.
+     * @param tokenRetencion Token obtenido al entrar a la pasarela de pago (puede ser null).
+     * @return La reserva persistida en la base de datos.
+     * @throws RuntimeException Si el horario ya se encuentra ocupado o retenido por otro cliente.
+     */
+    @Transactional
+    public Reserva crearReserva(Reserva reserva, String tokenRetencion) {
+        Long planId = reserva.getPlan().getId();
+        LocalDateTime fecha = reserva.getFechaCita();
+        AtomicBoolean ocupadoEnBase = new AtomicBoolean(false);
 
-        if (ocupado) {
-            throw new RuntimeException("Lo sentimos, este horario ya no está disponible para este plan.");
+        if (retencionFranjas.retenidaPorOtro(planId, fecha, tokenRetencion)) {
+            throw new RuntimeException(HORARIO_NO_DISPONIBLE);
         }
 
-        // 2. Si está libre, procedemos
-        reserva.setEstado("PENDIENTE");
-        reserva.setCodigoSeguimiento(GeneradorCodigo.generar()); // Tu lógica de códigos
-        return reservaRepository.save(reserva);
+        // 1. Reclamar el horario (en memoria si el índice lo cubre, o con el COUNT tradicional)
+        if (indiceDisponibilidad.cubre(fecha) && indiceDisponibilidad.reclamar(planId, fecha)) {
+            siSeRevierte(() -> {
+                if (!ocupadoEnBase.get()) {
+                    indiceDisponibilidad.liberar(planId, fecha);
+                }
+                cacheDisponibilidad.invalidar(planId, fecha);
+            });
+        } else if (reservaRepository.existeReservaEnEsaFecha(planId, fecha)) {
+            // Fuera del índice, o marcada en él: solo la base de datos sabe si sigue ocupada
+            throw new RuntimeException(HORARIO_NO_DISPONIBLE);
+        }
+
+        // 2. Si está libre, procedemos (toda reserva nueva nace PENDIENTE)
+        reserva.setCodigoSeguimiento(generadorCodigo.generar());
+        Reserva guardada;
+        try {
+            guardada = reservaRepository.save(reserva);
+        } catch (DataIntegrityViolationException e) {
+            // Otra transacción confirmó la misma franja: la base de datos la rechaza
+            ocupadoEnBase.set(true);
+            throw new RuntimeException(HORARIO_NO_DISPONIBLE, e);
+        }
+        estadisticasService.registrarCambio(guardada, null, guardada.getEstado());
+        // La retención se borra en esta misma transacción: si se revierte, el cliente la conserva
+        retencionFranjas.liberar(planId, fecha, tokenRetencion, false);
+        despuesDelCommit(() -> {
+            // Ya reclamada si el índice la cubría; si se estaba precargando, queda pendiente
+            indiceDisponibilidad.marcar(planId, fecha);
+            franjaCambiada(planId, fecha, true);
+        });
+        return guardada;
     }
+
     /**
-     * Obtiene el listado de todas las reservas ordenadas por fecha de cita descendente.
-     * * @return Lista completa de reservas registradas.
+     * Busca una reserva por su código de seguimiento. Los códigos con el largo del formato
+     * actual se revisan con su dígito verificador antes de consultar la base de datos; los
+     * de otro largo (generados antes de {@link GeneradorCodigo}) se buscan tal cual.
+     * * @param codigo Código ingresado, con o sin espacios y en mayúsculas o minúsculas.
+     * @return La reserva encontrada, o null si no existe.
+     * @throws Exception Si el código tiene el formato actual pero está mal escrito.
      */
-    public List<Reserva> listarTodas() {
-        return reservaRepository.findAllByOrderByFechaCitaDesc();
+    public Reserva buscarPorCodigo(String codigo) throws Exception {
+        String normalizado = codigo.strip().toUpperCase();
+        if (normalizado.length() == GeneradorCodigo.LARGO_CODIGO && !GeneradorCodigo.esValido(normalizado)) {
+            throw new Exception("El código " + normalizado + " no es válido: revisa que esté bien escrito.");
+        }
+        return reservaRepository.findByCodigoSeguimiento(normalizado);
+    }
+
+    /**
+     * Obtiene una página del listado administrativo, ordenado por fecha de cita
+     * descendente y paginado por clave (fechaCita, id) en vez de por desplazamiento.
+     * * @param filtro Filtros de estado, plan y rango de fechas.
+     * @param despuesFecha Fecha de la última reserva de la página anterior (null para la primera).
+     * @param despuesId Id de la última reserva de la página anterior (null para la primera).
+     * @return Página con las reservas (y su plan) y la clave para pedir la siguiente.
+     */
+    public PaginaReservas buscarPagina(FiltroReservas filtro, LocalDateTime despuesFecha, Long despuesId) {
+        Sort orden = Sort.by(Sort.Order.desc("fechaCita"), Sort.Order.desc("id"));
+        // Se pide una fila extra solo para saber si existe una página siguiente
+        List<Reserva> filas = reservaRepository.findBy(
+                ReservaEspecificaciones.pagina(filtro, despuesFecha, despuesId),
+                q -> q.sortBy(orden).limit(TAMANO_PAGINA + 1).all());
+
+        if (filas.size() <= TAMANO_PAGINA) {
+            return new PaginaReservas(filas, null, null);
+        }
+        List<Reserva> pagina = filas.subList(0, TAMANO_PAGINA);
+        Reserva ultima = pagina.get(TAMANO_PAGINA - 1);
+        return new PaginaReservas(pagina, ultima.getFechaCita(), ultima.getId());
     }
 
     /**
      * Procesa la compra de múltiples servicios desde el carrito en un solo flujo.
-     * Primero valida que TODOS los servicios estén disponibles para evitar reservas parciales
-     * y luego genera registros individuales para cada ítem.
-     * * @param carrito Lista de ítems seleccionados por el usuario.
-     * @param fecha La fecha y hora común para la prestación de los servicios.
+     * Cada ítem se agenda en su propia fecha y hora. Primero valida que TODAS las franjas
+     * estén disponibles para evitar reservas parciales y luego genera un registro por ítem.
+     * La validación se hace con una sola consulta para todos los pares (plan, franja) que el
+     * índice en memoria no cubre, y las inserciones se envían en un único lote JDBC, por lo
+     * que el costo en sentencias no depende del tamaño del carrito.
+     * * @param carrito Lista de ítems seleccionados por el usuario, cada uno con su fecha de cita.
+     * @param datosCliente Objeto que contiene la información de contacto del solicitante.
+     * @return Lista de reservas confirmadas y guardadas.
+     * @throws Exception Si algún ítem no tiene fecha o al menos un servicio no tiene disponibilidad.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public List<Reserva> guardarReservaMultiple(List<ItemCarrito> carrito, Reserva datosCliente) throws Exception {
+        return guardarReservaMultiple(carrito, datosCliente, null);
+    }
+
+    /**
+     * Variante de {@link #guardarReservaMultiple(List, Reserva)} que respeta las retenciones
+     * de pago: rechaza las franjas retenidas por otro cliente y libera las retenciones del
+     * token entregado al confirmar. Cualquier excepción revierte la transacción completa,
+     * también las verificadas, para que no quede ninguna reserva ni reclamo parcial.
+     * * @param carrito Lista de ítems seleccionados por el usuario, cada uno con su fecha de cita.
      * @param datosCliente Objeto que contiene la información de contacto del solicitante.
+     * @param tokenRetencion Token obtenido al entrar a la pasarela de pago (puede ser null).
      * @return Lista de reservas confirmadas y guardadas.
-     * @throws Exception Si al menos uno de los servicios solicitados no tiene disponibilidad.
+     * @throws Exception Si algún ítem no tiene fecha o su fecha ya pasó, o si al menos un servicio no
+     *         está disponible o está retenido.
      */
-    public List<Reserva> guardarReservaMultiple(List<ItemCarrito> carrito, LocalDateTime fecha, Reserva datosCliente) throws Exception {
+    @Transactional(rollbackOn = Exception.class)
+    public List<Reserva> guardarReservaMultiple(List<ItemCarrito> carrito, Reserva datosCliente,
+                                                String tokenRetencion) throws Exception {
         List<Reserva> listaConfirmadas = new ArrayList<>();        
         
-        // 1. Validar disponibilidad de TODOS los planes antes de guardar nada (Consistencia)
+        LocalDateTime ahora = LocalDateTime.now();
         for (ItemCarrito item : carrito) {
-            boolean ocupado = reservaRepository.existeReservaEnEsaFecha(
-                                item.getPlan().getId(), 
-                                fecha);
-            
-            if (ocupado) {
-                throw new Exception("Lo sentimos, el servicio '" + item.getPlan().getNombre() + 
-                                    "' ya no está disponible para esa fecha y hora.");
+            if (item.getFechaCita() == null) {
+                throw new Exception("Elige la fecha y hora para '" + item.getPlan().getNombre() + "'.");
+            }
+            if (item.getFechaCita().isBefore(ahora)) {
+                throw new Exception("La fecha elegida para '" + item.getPlan().getNombre() + "' ya pasó.");
+            }
+            if (retencionFranjas.retenidaPorOtro(item.getPlan().getId(), item.getFechaCita(), tokenRetencion)) {
+                throw new Exception(servicioNoDisponible(item));
             }
         }
 
-        // 2. Si todos están libres, procedemos a la persistencia
+        // 1. Validar disponibilidad de TODAS las franjas antes de guardar nada (Consistencia).
+        //    Primero la consulta (sin efectos), luego el reclamo en el índice, que se deshace si falla.
+        List<ItemCarrito> enIndice = new ArrayList<>();
+        List<FranjaPlan> fueraDelIndice = new ArrayList<>();
+        for (ItemCarrito item : carrito) {
+            if (indiceDisponibilidad.cubre(item.getFechaCita())) {
+                enIndice.add(item);
+            } else {
+                fueraDelIndice.add(new FranjaPlan(item.getPlan().getId(), item.getFechaCita()));
+            }
+        }
+        Set<FranjaPlan> ocupadas = reservaBatchRepository.franjasOcupadas(fueraDelIndice);
+        for (ItemCarrito item : carrito) {
+            if (ocupadas.contains(new FranjaPlan(item.getPlan().getId(), item.getFechaCita()))) {
+                throw new Exception(servicioNoDisponible(item));
+            }
+        }
+        reclamarTodos(enIndice);
+
+        // 2. Si todas están libres, procedemos a la persistencia
         for (ItemCarrito item : carrito) {
             Reserva nueva = new Reserva();
             nueva.setNombreCliente(datosCliente.getNombreCliente());
             nueva.setEmailCliente(datosCliente.getEmailCliente());
             nueva.setTelefonoCliente(datosCliente.getTelefonoCliente());
-            nueva.setFechaCita(fecha);
+            nueva.setFechaCita(item.getFechaCita());
             nueva.setPlan(item.getPlan());
-            nueva.setEstado("CONFIRMADA");
-            // Generación de código único de seguimiento
-            nueva.setCodigoSeguimiento(java.util.UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+            nueva.cambiarEstado(EstadoReserva.CONFIRMADA);
+            nueva.setCodigoSeguimiento(generadorCodigo.generar());
             
-            listaConfirmadas.add(reservaRepository.save(nueva));
+            listaConfirmadas.add(nueva);
+        }
+        try {
+            reservaBatchRepository.insertarTodas(listaConfirmadas);
+        } catch (DataIntegrityViolationException e) {
+            throw new Exception("Lo sentimos, uno de los servicios ya no está disponible para la fecha y hora elegida.", e);
         }
+        for (Reserva r : listaConfirmadas) {
+            estadisticasService.registrarCambio(r, null, r.getEstado());
+            retencionFranjas.liberar(r.getPlan().getId(), r.getFechaCita(), tokenRetencion, false);
+        }
+        despuesDelCommit(() -> listaConfirmadas.forEach(r -> {
+            indiceDisponibilidad.marcar(r.getPlan().getId(), r.getFechaCita());
+            franjaCambiada(r.getPlan().getId(), r.getFechaCita(), true);
+        }));
         return listaConfirmadas;
     }
 
+    /**
+     * Reclama en el índice la franja de cada ítem. Las que el índice ya tiene marcadas se
+     * confirman con una sola consulta, porque la marca puede ser de una reserva cancelada en
+     * otro nodo; si alguna sigue ocupada se liberan las reclamadas. Si la transacción se
+     * revierte (también cuando la base de datos rechazó el lote) se liberan todas las
+     * reclamadas: la franja que otra transacción confirmó vuelve a quedar marcada con el
+     * {@code marcar} posterior a su commit.
+     */
+    private void reclamarTodos(List<ItemCarrito> items) throws Exception {
+        List<FranjaPlan> reclamadas = new ArrayList<>();
+        Map<FranjaPlan, ItemCarrito> marcadas = new LinkedHashMap<>();
+        for (ItemCarrito item : items) {
+            FranjaPlan franja = new FranjaPlan(item.getPlan().getId(), item.getFechaCita());
+            if (indiceDisponibilidad.reclamar(franja.planId(), franja.fecha())) {
+                reclamadas.add(franja);
+            } else {
+                marcadas.put(franja, item);
+            }
+        }
+        if (!marcadas.isEmpty()) {
+            Set<FranjaPlan> ocupadas = reservaBatchRepository.franjasOcupadas(marcadas.keySet());
+            if (!ocupadas.isEmpty()) {
+                reclamadas.forEach(f -> indiceDisponibilidad.liberar(f.planId(), f.fecha()));
+                throw new Exception(servicioNoDisponible(marcadas.get(ocupadas.iterator().next())));
+            }
+        }
+        siSeRevierte(() -> reclamadas.forEach(f -> {
+            indiceDisponibilidad.liberar(f.planId(), f.fecha());
+            cacheDisponibilidad.invalidar(f.planId(), f.fecha());
+        }));
+    }
+
+    private static String servicioNoDisponible(ItemCarrito item) {
+        return "Lo sentimos, el servicio '" + item.getPlan().getNombre() + 
+               "' ya no está disponible para la fecha y hora elegida.";
+    }
+
     /**
      * Elimina una reserva del sistema verificando su existencia previa.
      * * @param id Identificador único de la reserva.
      * @throws Exception Si el ID proporcionado no corresponde a ninguna reserva existente.
      */
+    @Transactional
     public void eliminarReserva(Long id) throws Exception {
-        if (!reservaRepository.existsById(id)) {
-            throw new Exception("La reserva con ID " + id + " no existe.");
-        }
-        reservaRepository.deleteById(id);
+        Reserva reserva = reservaRepository.findById(id)
+                .orElseThrow(() -> new Exception("La reserva con ID " + id + " no existe."));
+        reservaRepository.delete(reserva);
+        estadisticasService.registrarCambio(reserva, reserva.getEstado(), null);
+        despuesDelCommit(() -> recalcularFranja(reserva.getPlan().getId(), reserva.getFechaCita()));
     }
 
     /**
@@ -116,9 +356,14 @@ public class ReservaService {
      * * @param id Identificador único de la reserva.
      * @throws Exception Si la reserva no se encuentra para ser eliminada.
      */
+    @Transactional
     public void eliminar(Long id) throws Exception {
         reservaRepository.findById(id).ifPresentOrElse(
-            reserva -> reservaRepository.delete(reserva),
+            reserva -> {
+                reservaRepository.delete(reserva);
+                estadisticasService.registrarCambio(reserva, reserva.getEstado(), null);
+                despuesDelCommit(() -> recalcularFranja(reserva.getPlan().getId(), reserva.getFechaCita()));
+            },
             () -> {
                 try {
                     throw new Exception("No se encontró la reserva para eliminar.");
@@ -129,23 +374,211 @@ public class ReservaService {
         );
     }
     /**
-     * Cambia el estado de una reserva a 'CONFIRMADA'.
+     * Cambia el estado de una reserva a CONFIRMADA.
      * @param id Identificador de la reserva.
-     * @throws RuntimeException si la reserva no existe.
+     * @throws RuntimeException si la reserva no existe o su estado no admite la confirmación.
      */
     @Transactional
     public void confirmarReserva(Long id) {
-        // Buscamos la reserva por ID
-        Reserva reserva = reservaRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Reserva con ID " + id + " no encontrada"));
-        
-        // Cambiamos el estado
-        reserva.setEstado("CONFIRMADA");
-        
-        // Guardamos los cambios
-        reservaRepository.save(reserva);
+        if (cambiarEstado(List.of(id), EstadoReserva.CONFIRMADA) == 0) {
+            throw new RuntimeException("La reserva con ID " + id + " no existe o no se puede confirmar.");
+        }
+    }
+
+    /**
+     * Cambia el estado de varias reservas con un único UPDATE, sin cargarlas en memoria.
+     * Las reservas cuyo estado actual no admite la transición (por ejemplo, confirmar
+     * una cancelada) se omiten. Al cancelar se liberan sus franjas: el índice único
+     * parcial garantiza que no había otra reserva activa en el mismo plan y horario.
+     * * @param ids Identificadores de las reservas seleccionadas.
+     * @param nuevo Estado de destino.
+     * @return Cantidad de reservas que cambiaron de estado.
+     */
+    @Transactional
+    public int cambiarEstado(Collection<Long> ids, EstadoReserva nuevo) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        List<CambioEstadoReserva> cambios = reservaBatchRepository.cambiarEstado(new HashSet<>(ids), nuevo);
+        estadisticasService.registrarCambios(cambios);
+        if (!nuevo.isActiva()) {
+            despuesDelCommit(() -> cambios.forEach(c -> {
+                indiceDisponibilidad.liberar(c.planId(), c.fechaCita());
+                franjaCambiada(c.planId(), c.fechaCita(), false);
+            }));
+        }
+        return cambios.size();
     }
+
+    /**
+     * Verifica si un plan tiene una reserva activa en la fecha y hora indicadas.
+     * Se responde desde el {@link IndiceDisponibilidad} cuando la fecha está cubierta
+     * por él y la franja figura libre; en caso contrario se consulta la base de datos.
+     * Las franjas retenidas durante un pago cuentan como ocupadas. Las consultas idénticas
+     * y simultáneas se agrupan en {@link CacheDisponibilidad}.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la cita.
+     * @return true si el horario ya está tomado.
+     */
     public boolean verificarOcupado(Long planId, LocalDateTime fecha) {
+        return cacheDisponibilidad.consultar(planId, fecha,
+                () -> retencionFranjas.estaRetenida(planId, fecha) || tieneReservaActiva(planId, fecha));
+    }
+
+    /**
+     * Retiene las franjas de los planes indicados mientras el cliente paga.
+     * Si alguna ya está reservada o retenida por otro cliente, no se retiene ninguna.
+     * * @param planIds Planes a retener.
+     * @param fecha Fecha y hora de la cita.
+     * @param token Identificador del proceso de pago del cliente.
+     * @return true si todas las franjas quedaron retenidas por el token.
+     */
+    public boolean retenerFranjas(List<Long> planIds, LocalDateTime fecha, String token) {
+        return retenerFranjas(planIds.stream().map(planId -> new FranjaPlan(planId, fecha)).toList(), token);
+    }
+
+    /**
+     * Retiene varias franjas, cada una con su propia fecha, mientras el cliente paga.
+     * Las reservas existentes se revisan con una sola consulta; si alguna franja ya está
+     * reservada o retenida por otro cliente, no se retiene ninguna.
+     * * @param franjas Pares (plan, fecha y hora) a retener.
+     * @param token Identificador del proceso de pago del cliente.
+     * @return true si todas las franjas quedaron retenidas por el token.
+     */
+    public boolean retenerFranjas(Collection<FranjaPlan> franjas, String token) {
+        if (!franjasReservadas(franjas).isEmpty()) {
+            return false;
+        }
+        List<FranjaPlan> retenidas = new ArrayList<>();
+        for (FranjaPlan franja : franjas) {
+            if (!retencionFranjas.retener(franja.planId(), franja.fecha(), token)) {
+                retenidas.forEach(f -> retencionFranjas.liberar(f.planId(), f.fecha(), token, true));
+                return false;
+            }
+            retenidas.add(franja);
+        }
+        return true;
+    }
+
+    /**
+     * Indica cuáles de las franjas están tomadas, ya sea por una reserva activa o por una
+     * retención de pago. Las franjas que el {@link IndiceDisponibilidad} cubre y tiene
+     * libres se responden desde memoria y el resto con una sola consulta, sin importar
+     * cuántas sean.
+     * * @param franjas Pares (plan, fecha y hora) a consultar.
+     * @return Subconjunto de las franjas que no están disponibles.
+     */
+    public Set<FranjaPlan> franjasOcupadas(Collection<FranjaPlan> franjas) {
+        Set<FranjaPlan> ocupadas = franjasReservadas(franjas);
+        for (FranjaPlan franja : franjas) {
+            if (retencionFranjas.estaRetenida(franja.planId(), franja.fecha())) {
+                ocupadas.add(franja);
+            }
+        }
+        return ocupadas;
+    }
+
+    /**
+     * Franjas con una reserva activa. Las libres según el índice se responden desde memoria;
+     * las que el índice marca como ocupadas o no cubre se resuelven en una sola consulta.
+     */
+    private Set<FranjaPlan> franjasReservadas(Collection<FranjaPlan> franjas) {
+        List<FranjaPlan> aConsultar = new ArrayList<>();
+        for (FranjaPlan franja : franjas) {
+            if (!indiceDisponibilidad.cubre(franja.fecha())
+                    || indiceDisponibilidad.estaOcupado(franja.planId(), franja.fecha())) {
+                aConsultar.add(franja);
+            }
+        }
+        return new HashSet<>(reservaBatchRepository.franjasOcupadas(aConsultar));
+    }
+
+    private boolean tieneReservaActiva(Long planId, LocalDateTime fecha) {
+        if (indiceDisponibilidad.cubre(fecha) && !indiceDisponibilidad.estaOcupado(planId, fecha)) {
+            return false;
+        }
         return reservaRepository.existeReservaEnEsaFecha(planId, fecha);
     }
+
+    /**
+     * Obtiene el mapa de ocupación de un plan para un mes completo.
+     * Si el mes está cubierto por el índice se responde desde memoria (una reserva de otro
+     * nodo aparece con la siguiente resincronización del índice); de lo contrario
+     * se resuelve con una única consulta por rango sobre la fecha de la cita. Las franjas
+     * retenidas durante un pago también se marcan como ocupadas.
+     * * @param planId Identificador del plan.
+     * @param mes Mes consultado.
+     * @return Un {@code long} por día del mes con un bit por franja ocupada.
+     */
+    public long[] obtenerOcupacionMensual(Long planId, YearMonth mes) {
+        long[] dias;
+        if (indiceDisponibilidad.cubreMes(mes)) {
+            dias = indiceDisponibilidad.ocupacionMensual(planId, mes);
+        } else {
+            dias = new long[mes.lengthOfMonth()];
+            List<LocalDateTime> fechas = reservaRepository.findFechasOcupadasEntre(
+                    planId, mes.atDay(1).atStartOfDay(), mes.plusMonths(1).atDay(1).atStartOfDay());
+            for (LocalDateTime fecha : fechas) {
+                dias[fecha.getDayOfMonth() - 1] |= IndiceDisponibilidad.bit(fecha);
+            }
+        }
+        retencionFranjas.marcarRetenidas(planId, mes, dias);
+        return dias;
+    }
+
+    /**
+     * Sincroniza el índice con la base de datos para una franja tras una eliminación,
+     * ya que podrían existir otras reservas activas en el mismo horario. Si la franja
+     * quedó libre se avisa a los formularios abiertos.
+     */
+    private void recalcularFranja(Long planId, LocalDateTime fecha) {
+        if (reservaRepository.existeReservaEnEsaFecha(planId, fecha)) {
+            indiceDisponibilidad.marcar(planId, fecha);
+        } else {
+            indiceDisponibilidad.liberar(planId, fecha);
+            franjaCambiada(planId, fecha, false);
+        }
+    }
+
+    /**
+     * Invalida la caché de disponibilidad del horario y avisa a los formularios abiertos.
+     */
+    private void franjaCambiada(Long planId, LocalDateTime fecha, boolean ocupada) {
+        cacheDisponibilidad.invalidar(planId, fecha);
+        notificadorFranjas.publicar(planId, fecha, ocupada);
+    }
+
+    /**
+     * Ejecuta la acción si la transacción actual termina revertida.
+     */
+    private void siSeRevierte(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual confirma sus cambios,
+     * o de inmediato si no hay una transacción activa.
+     */
+    private void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
 }
\ No newline at end of file
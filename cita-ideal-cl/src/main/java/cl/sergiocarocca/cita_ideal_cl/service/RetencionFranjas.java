@@ -0,0 +1,212 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+import cl.sergiocarocca.cita_ideal_cl.repository.RetencionFranjasRepository;
+import cl.sergiocarocca.cita_ideal_cl.util.RuedaTemporizadora;
+
+/**
+ * Retenciones temporales de franjas horarias mientras el cliente completa el pago.
+ * Al entrar a la pasarela se retiene el (plan, horario) durante unos minutos con un
+ * token propio del cliente; mientras la retención esté vigente las validaciones de
+ * disponibilidad la consideran ocupada.
+ * <p>
+ * Las retenciones se guardan en la tabla {@code retenciones_franjas}, así todos los nodos
+ * ven las mismas y la base de datos decide cuál de dos clientes se queda con la franja.
+ * Cada nodo programa en una {@link RuedaTemporizadora}, que avanza una vez por segundo,
+ * la expiración de las retenciones que creó, para borrarlas y avisar a sus formularios
+ * abiertos; una limpieza periódica borra las que quedaron de un nodo detenido.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class RetencionFranjas {
+
+    private record Clave(Long planId, LocalDateTime fecha) {
+    }
+
+    /** Retención creada por este nodo; su vencimiento la distingue de una renovación posterior. */
+    private static final class Retencion {
+        private final Clave clave;
+        private final String token;
+        private final LocalDateTime expiraEn;
+        private volatile RuedaTemporizadora.Temporizador<Retencion> temporizador;
+
+        private Retencion(Clave clave, String token, LocalDateTime expiraEn) {
+            this.clave = clave;
+            this.token = token;
+            this.expiraEn = expiraEn;
+        }
+    }
+
+    /** Retenciones de este nodo con su temporizador, para cancelarlo al renovar o liberar. */
+    private final ConcurrentHashMap<Clave, Retencion> propias = new ConcurrentHashMap<>();
+
+    private final RuedaTemporizadora<Retencion> rueda;
+    private final Duration duracion;
+    private final RetencionFranjasRepository retencionFranjasRepository;
+    private final CacheDisponibilidad cacheDisponibilidad;
+    private final NotificadorFranjas notificadorFranjas;
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param duracion Tiempo que dura una retención desde que se crea o renueva.
+     * @param retencionFranjasRepository Repositorio de la tabla de retenciones.
+     * @param cacheDisponibilidad Caché a invalidar cuando cambia una retención.
+     * @param notificadorFranjas Difusor SSE para avisar a los formularios abiertos.
+     */
+    public RetencionFranjas(@Value("${citaideal.retencion.duracion:5m}") Duration duracion,
+                            RetencionFranjasRepository retencionFranjasRepository,
+                            CacheDisponibilidad cacheDisponibilidad,
+                            NotificadorFranjas notificadorFranjas) {
+        this.duracion = duracion;
+        this.retencionFranjasRepository = retencionFranjasRepository;
+        this.cacheDisponibilidad = cacheDisponibilidad;
+        this.notificadorFranjas = notificadorFranjas;
+        this.rueda = new RuedaTemporizadora<>(512, Duration.ofSeconds(1), this::expirar);
+    }
+
+    /**
+     * Retiene una franja para el token indicado. Si el mismo token ya la tenía, la renueva.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @param token Identificador del proceso de pago del cliente.
+     * @return true si la franja quedó retenida por este token.
+     */
+    public boolean retener(Long planId, LocalDateTime fecha, String token) {
+        LocalDateTime expiraEn = retencionFranjasRepository.retener(planId, fecha, token, duracion);
+        if (expiraEn == null) {
+            return false;
+        }
+        Clave clave = new Clave(planId, fecha);
+        Retencion nueva = new Retencion(clave, token, expiraEn);
+        Retencion[] anterior = new Retencion[1];
+        // Si dos renovaciones se cruzan, el temporizador que queda es el de la más reciente
+        Retencion vigente = propias.compute(clave, (k, actual) -> {
+            if (actual != null && actual.expiraEn.isAfter(expiraEn)) {
+                return actual;
+            }
+            anterior[0] = actual;
+            return nueva;
+        });
+        if (vigente != nueva) {
+            return true;
+        }
+        if (anterior[0] != null) {
+            // Renovación: se cancela el temporizador anterior y se programa uno nuevo
+            cancelarTemporizador(anterior[0]);
+        }
+        nueva.temporizador = rueda.programar(nueva, duracion);
+        if (anterior[0] == null || !anterior[0].token.equals(token)) {
+            cambio(clave, true);
+        }
+        return true;
+    }
+
+    /**
+     * Indica si la franja está retenida por un token distinto al entregado.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @param token Token del cliente que consulta (puede ser null).
+     * @return true si otro cliente tiene la franja retenida.
+     */
+    public boolean retenidaPorOtro(Long planId, LocalDateTime fecha, String token) {
+        String dueno = retencionFranjasRepository.tokenVigente(planId, fecha);
+        return dueno != null && !dueno.equals(token);
+    }
+
+    /**
+     * Indica si la franja tiene una retención vigente, sin importar su dueño.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @return true si la franja está retenida.
+     */
+    public boolean estaRetenida(Long planId, LocalDateTime fecha) {
+        return retencionFranjasRepository.tokenVigente(planId, fecha) != null;
+    }
+
+    /**
+     * Marca en el mapa de ocupación mensual las franjas retenidas del plan.
+     * * @param planId Identificador del plan.
+     * @param mes Mes consultado.
+     * @param dias Mapa de ocupación (un {@code long} por día) a completar.
+     */
+    public void marcarRetenidas(Long planId, YearMonth mes, long[] dias) {
+        for (LocalDateTime fecha : retencionFranjasRepository.vigentesEntre(planId,
+                mes.atDay(1).atStartOfDay(), mes.plusMonths(1).atDay(1).atStartOfDay())) {
+            dias[fecha.getDayOfMonth() - 1] |= IndiceDisponibilidad.bit(fecha);
+        }
+    }
+
+    /**
+     * Libera la franja si está retenida por el token indicado (por ejemplo, tras
+     * confirmarse la reserva o al abandonar el pago). Dentro de una transacción, el borrado
+     * se confirma o se revierte junto con ella.
+     * * @param planId Identificador del plan.
+     * @param fecha Fecha y hora de la franja.
+     * @param token Token del cliente dueño de la retención.
+     * @param notificar true para avisar a los formularios abiertos que la franja quedó libre.
+     */
+    public void liberar(Long planId, LocalDateTime fecha, String token, boolean notificar) {
+        if (token == null || !retencionFranjasRepository.liberar(planId, fecha, token, null)) {
+            return;
+        }
+        Clave clave = new Clave(planId, fecha);
+        Retencion actual = propias.get(clave);
+        if (actual != null && actual.token.equals(token) && propias.remove(clave, actual)) {
+            cancelarTemporizador(actual);
+        }
+        cacheDisponibilidad.invalidar(planId, fecha);
+        if (notificar) {
+            notificadorFranjas.publicar(planId, fecha, false);
+        }
+    }
+
+    /**
+     * Avanza la rueda temporizadora un tick (una vez por segundo).
+     */
+    @Scheduled(fixedRate = 1000)
+    public void avanzar() {
+        rueda.avanzar();
+    }
+
+    /**
+     * Borra las retenciones vencidas que siguen en la tabla porque el nodo que las creó se
+     * detuvo antes de expirarlas. Mientras tanto no molestan: las consultas ignoran las
+     * vencidas y {@link #retener} las reemplaza.
+     */
+    @Scheduled(fixedDelayString = "${citaideal.retencion.limpieza-ms:60000}")
+    public void limpiarVencidas() {
+        for (FranjaPlan franja : retencionFranjasRepository.eliminarVencidas()) {
+            cambio(new Clave(franja.planId(), franja.fecha()), false);
+        }
+    }
+
+    private void expirar(Retencion retencion) {
+        propias.remove(retencion.clave, retencion);
+        Clave clave = retencion.clave;
+        if (retencionFranjasRepository.liberar(clave.planId(), clave.fecha(), retencion.token, retencion.expiraEn)) {
+            cambio(clave, false);
+        }
+    }
+
+    private void cancelarTemporizador(Retencion retencion) {
+        RuedaTemporizadora.Temporizador<Retencion> temporizador = retencion.temporizador;
+        if (temporizador != null) {
+            temporizador.cancelar();
+        }
+    }
+
+    private void cambio(Clave clave, boolean ocupada) {
+        cacheDisponibilidad.invalidar(clave.planId(), clave.fecha());
+        notificadorFranjas.publicar(clave.planId(), clave.fecha(), ocupada);
+    }
+}
@@ -0,0 +1,33 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Versión del contenido público (planes y galería). Los servicios la incrementan cada
+ * vez que el administrador modifica ese contenido, y la caché de páginas descarta las
+ * páginas generadas con una versión anterior.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
+public class VersionContenido {
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Versión vigente del contenido público.
+     * * @return Número que cambia con cada modificación.
+     */
+    public long actual() {
+        return version.get();
+    }
+
+    /**
+     * Registra una modificación del contenido público.
+     */
+    public void incrementar() {
+        version.incrementAndGet();
+    }
+}
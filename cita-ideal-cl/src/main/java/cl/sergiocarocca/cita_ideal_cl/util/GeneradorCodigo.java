@@ -1,11 +1,161 @@
 package cl.sergiocarocca.cita_ideal_cl.util;
 
-import java.util.UUID;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generador de códigos de seguimiento de reservas.
+ * Cada código proviene de un número de secuencia distinto, por lo que no puede repetirse:
+ * la secuencia de la base de datos entrega bloques de {@value #TAMANO_BLOQUE} números que
+ * se reparten en memoria con un contador atómico (sin bloqueos ni {@code SecureRandom}).
+ * El número se mezcla con una permutación biyectiva de 40 bits para que los códigos
+ * consecutivos no sean predecibles, se codifica en 8 caracteres Base32 de Crockford y se
+ * completa con un dígito verificador (Luhn mod 32) que detecta errores de tipeo.
+ * Formato: {@code CITA-XXXXXXXXV}.
+ * * @author Sergio Carocca
+ * @version 1.0
+ */
+@Component
 public class GeneradorCodigo {
 
-    public static String generar() {
-        // Genera un código corto de 8 caracteres basado en UUID
-        return "CITA-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    public static final String PREFIJO = "CITA-";
+
+    /** Incremento de la secuencia reservas_codigo_seq (ver migración V3). */
+    static final int TAMANO_BLOQUE = 100;
+
+    /** Sin I, L, O ni U para evitar confusiones al dictar o escribir el código. */
+    private static final char[] ALFABETO = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BASE = 32;
+    private static final int LARGO = 8;
+
+    /** Largo total de un código: prefijo, 8 caracteres y el dígito verificador. */
+    public static final int LARGO_CODIGO = PREFIJO.length() + LARGO + 1;
+    private static final long MASCARA = (1L << 40) - 1;
+
+    /** Valor de cada carácter del alfabeto, -1 para los que no pertenecen a él. */
+    private static final byte[] VALORES = new byte[128];
+
+    static {
+        Arrays.fill(VALORES, (byte) -1);
+        for (int i = 0; i < BASE; i++) {
+            VALORES[ALFABETO[i]] = (byte) i;
+        }
+    }
+
+    private record Bloque(AtomicLong siguiente, long limite) {
+    }
+
+    private final LongSupplier reservarBloque;
+    private final long clave;
+    private volatile Bloque bloque = new Bloque(new AtomicLong(), 0);
+
+    /**
+     * Constructor para la inyección de dependencias.
+     * * @param jdbcTemplate Acceso a la secuencia de códigos.
+     * @param clave Valor secreto que altera la permutación (distinto por instalación).
+     */
+    @Autowired
+    public GeneradorCodigo(JdbcTemplate jdbcTemplate, @Value("${citaideal.codigo.clave:0}") long clave) {
+        this(() -> jdbcTemplate.queryForObject("SELECT nextval('reservas_codigo_seq')", Long.class), clave);
+    }
+
+    /**
+     * Constructor con una fuente de bloques arbitraria (pruebas y benchmarks).
+     * * @param reservarBloque Entrega el primer número de un bloque libre de {@value #TAMANO_BLOQUE}.
+     * @param clave Valor secreto que altera la permutación.
+     */
+    GeneradorCodigo(LongSupplier reservarBloque, long clave) {
+        this.reservarBloque = reservarBloque;
+        this.clave = clave & MASCARA;
+    }
+
+    /**
+     * Genera un nuevo código de seguimiento.
+     * * @return Código único con prefijo y dígito verificador.
+     */
+    public String generar() {
+        while (true) {
+            Bloque actual = bloque;
+            long numero = actual.siguiente().getAndIncrement();
+            if (numero < actual.limite()) {
+                return codificar(numero);
+            }
+            synchronized (this) {
+                if (bloque == actual) {
+                    long inicio = reservarBloque.getAsLong();
+                    bloque = new Bloque(new AtomicLong(inicio), inicio + TAMANO_BLOQUE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Convierte un número de secuencia en su código.
+     * * @param numero Número de secuencia (hasta 2^40 - 1).
+     * @return Código con prefijo y dígito verificador.
+     */
+    String codificar(long numero) {
+        if (numero < 0 || numero > MASCARA) {
+            throw new IllegalStateException("Secuencia de códigos agotada: " + numero);
+        }
+        long x = mezclar(numero);
+        char[] codigo = new char[LARGO_CODIGO];
+        PREFIJO.getChars(0, PREFIJO.length(), codigo, 0);
+        for (int i = PREFIJO.length() + LARGO - 1; i >= PREFIJO.length(); i--) {
+            codigo[i] = ALFABETO[(int) (x & (BASE - 1))];
+            x >>>= 5;
+        }
+        codigo[codigo.length - 1] = ALFABETO[verificador(codigo, PREFIJO.length(), LARGO)];
+        return new String(codigo);
+    }
+
+    /**
+     * Revisa el formato y el dígito verificador de un código, sin consultar la base de datos.
+     * * @param codigo Código ingresado por el cliente.
+     * @return true si el código está bien formado.
+     */
+    public static boolean esValido(String codigo) {
+        if (codigo == null || codigo.length() != LARGO_CODIGO || !codigo.startsWith(PREFIJO)) {
+            return false;
+        }
+        char[] caracteres = codigo.toCharArray();
+        for (int i = PREFIJO.length(); i < caracteres.length; i++) {
+            if (valor(caracteres[i]) < 0) {
+                return false;
+            }
+        }
+        return ALFABETO[verificador(caracteres, PREFIJO.length(), LARGO)] == caracteres[caracteres.length - 1];
+    }
+
+    /** Permutación de 40 bits: multiplicaciones por impares y xor-shift son invertibles. */
+    private long mezclar(long numero) {
+        long x = (numero * 0x9E3779B97L) & MASCARA;
+        x ^= clave;
+        x ^= x >>> 21;
+        x = (x * 0xC2B2AE3D27L) & MASCARA;
+        x ^= x >>> 19;
+        return x;
+    }
+
+    /** Algoritmo de Luhn mod N sobre el alfabeto Base32. */
+    private static int verificador(char[] codigo, int desde, int largo) {
+        int factor = 2;
+        int suma = 0;
+        for (int i = desde + largo - 1; i >= desde; i--) {
+            int sumando = factor * valor(codigo[i]);
+            factor = factor == 2 ? 1 : 2;
+            suma += sumando / BASE + sumando % BASE;
+        }
+        return (BASE - suma % BASE) % BASE;
+    }
+
+    private static int valor(char c) {
+        return c < VALORES.length ? VALORES[c] : -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package cl.sergiocarocca.cita_ideal_cl.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda temporizadora con hash ("hashed timer wheel") para expirar miles de
+ * elementos con un costo O(1) por alta y por tick, sin crear una tarea
+ * programada por elemento.
+ * La rueda tiene un número fijo de ranuras; cada llamada a {@link #avanzar()}
+ * procesa la siguiente ranura. Un elemento cuyo retraso supera una vuelta
+ * completa lleva la cuenta de las rondas que aún debe esperar.
+ * * @author Sergio Carocca
+ * @version 1.0
+ * @param <T> Tipo de elemento que se expira.
+ */
+public class RuedaTemporizadora<T> {
+
+    /**
+     * Elemento programado dentro de la rueda; permite cancelarlo antes de su expiración.
+     */
+    public static final class Temporizador<T> {
+        private final T elemento;
+        private long rondas;
+        private volatile boolean cancelado;
+
+        private Temporizador(T elemento, long rondas) {
+            this.elemento = elemento;
+            this.rondas = rondas;
+        }
+
+        /** Evita que el elemento sea expirado; se descarta en la próxima pasada. */
+        public void cancelar() {
+            cancelado = true;
+        }
+    }
+
+    private final List<ArrayDeque<Temporizador<T>>> ranuras;
+    private final long tickNanos;
+    private final Consumer<T> alExpirar;
+    private long posicion;
+
+    /**
+     * Crea una rueda vacía.
+     * * @param cantidadRanuras Número de ranuras de la rueda.
+     * @param tick Duración de cada tick (frecuencia con que se invoca {@link #avanzar()}).
+     * @param alExpirar Acción a ejecutar con cada elemento expirado.
+     */
+    public RuedaTemporizadora(int cantidadRanuras, Duration tick, Consumer<T> alExpirar) {
+        this.ranuras = new ArrayList<>(cantidadRanuras);
+        for (int i = 0; i < cantidadRanuras; i++) {
+            ranuras.add(new ArrayDeque<>());
+        }
+        this.tickNanos = tick.toNanos();
+        this.alExpirar = alExpirar;
+    }
+
+    /**
+     * Programa la expiración de un elemento.
+     * * @param elemento Elemento a expirar.
+     * @param retraso Tiempo que debe transcurrir antes de expirarlo.
+     * @return Temporizador que permite cancelar la expiración.
+     */
+    public synchronized Temporizador<T> programar(T elemento, Duration retraso) {
+        long ticks = Math.max(1, (retraso.toNanos() + tickNanos - 1) / tickNanos);
+        int n = ranuras.size();
+        Temporizador<T> temporizador = new Temporizador<>(elemento, (ticks - 1) / n);
+        ranuras.get((int) ((posicion + ticks) % n)).add(temporizador);
+        return temporizador;
+    }
+
+    /**
+     * Avanza un tick y expira los elementos de la ranura alcanzada.
+     * Las acciones de expiración se ejecutan fuera del bloqueo de la rueda.
+     */
+    public void avanzar() {
+        List<T> expirados = new ArrayList<>();
+        synchronized (this) {
+            posicion++;
+            Iterator<Temporizador<T>> it = ranuras.get((int) (posicion % ranuras.size())).iterator();
+            while (it.hasNext()) {
+                Temporizador<T> t = it.next();
+                if (t.cancelado) {
+                    it.remove();
+                } else if (t.rondas > 0) {
+                    t.rondas--;
+                } else {
+                    it.remove();
+                    expirados.add(t.elemento);
+                }
+            }
+        }
+        expirados.forEach(alExpirar);
+    }
+}
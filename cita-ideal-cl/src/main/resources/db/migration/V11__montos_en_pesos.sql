@@ -0,0 +1,52 @@
+-- Los montos son pesos chilenos, sin decimales: la aplicación los maneja como enteros
+-- (Dinero) y la conversión desde NUMERIC debe ser exacta.
+
+-- Un precio con centavos (el formulario antes aceptaba 0.01) se redondea al peso más cercano.
+-- Cada monto modificado queda con su valor anterior en montos_redondeados_v11 y en el log
+-- de la migración, para poder revisarlo o revertirlo a mano.
+CREATE TABLE montos_redondeados_v11 (
+    tabla           VARCHAR(64)    NOT NULL,
+    clave           VARCHAR(64)    NOT NULL,
+    columna         VARCHAR(64)    NOT NULL,
+    valor_anterior  NUMERIC(38, 2) NOT NULL,
+    valor_nuevo     NUMERIC(38, 2) NOT NULL,
+    redondeado_en   TIMESTAMP(6)   NOT NULL DEFAULT now(),
+    PRIMARY KEY (tabla, clave, columna)
+);
+
+DO $$
+DECLARE
+    redondeados TEXT;
+BEGIN
+    WITH precios AS (
+        UPDATE plan p
+        SET precio_base = round(p.precio_base)
+        FROM (SELECT id, precio_base FROM plan WHERE precio_base <> trunc(precio_base)) anterior
+        WHERE p.id = anterior.id
+        RETURNING 'plan'::TEXT AS tabla, p.id::TEXT AS clave, 'precio_base'::TEXT AS columna,
+                  anterior.precio_base AS valor_anterior, p.precio_base AS valor_nuevo
+    ), ingresos AS (
+        UPDATE estadisticas_reservas_dia e
+        SET ingresos = round(e.ingresos)
+        FROM (SELECT plan_id, dia, ingresos FROM estadisticas_reservas_dia
+              WHERE ingresos <> trunc(ingresos)) anterior
+        WHERE e.plan_id = anterior.plan_id AND e.dia = anterior.dia
+        RETURNING 'estadisticas_reservas_dia'::TEXT, e.plan_id || '/' || e.dia, 'ingresos'::TEXT,
+                  anterior.ingresos, e.ingresos
+    ), registrados AS (
+        INSERT INTO montos_redondeados_v11 (tabla, clave, columna, valor_anterior, valor_nuevo)
+        SELECT * FROM precios UNION ALL SELECT * FROM ingresos
+        RETURNING tabla, clave, valor_anterior, valor_nuevo
+    )
+    SELECT string_agg(format('%s %s: %s -> %s', tabla, clave, valor_anterior, valor_nuevo), '; '
+                      ORDER BY tabla, clave)
+    INTO redondeados FROM registrados;
+    IF redondeados IS NOT NULL THEN
+        RAISE WARNING 'Montos con centavos redondeados (ver montos_redondeados_v11): %', redondeados;
+    END IF;
+END $$;
+
+ALTER TABLE plan
+    ADD CONSTRAINT ck_plan_precio_pesos CHECK (precio_base = trunc(precio_base));
+ALTER TABLE estadisticas_reservas_dia
+    ADD CONSTRAINT ck_estadisticas_ingresos_pesos CHECK (ingresos = trunc(ingresos));
@@ -0,0 +1,54 @@
+-- Unicidad de los códigos de seguimiento con reservas particionada.
+-- Desde V7 no puede existir un índice único solo sobre codigo_seguimiento (debería incluir
+-- fecha_cita). reservas_codigos registra cada código una sola vez en su clave primaria y un
+-- trigger la completa en la misma transacción que inserta o modifica la reserva: un código
+-- repetido hace fallar ese INSERT/UPDATE con unique_violation, igual que el índice de V3.
+-- Al eliminar una reserva o archivar su partición el código queda registrado y no se reutiliza.
+
+CREATE TABLE reservas_codigos (
+    codigo_seguimiento  VARCHAR(255) PRIMARY KEY,
+    reserva_id          BIGINT       NOT NULL,
+    fecha_cita          TIMESTAMP(6) NOT NULL
+);
+
+-- Códigos repetidos que hayan entrado desde V7: se desambiguan con el id, como en V3
+UPDATE reservas r
+SET codigo_seguimiento = r.codigo_seguimiento || '-' || r.id
+WHERE EXISTS (SELECT 1 FROM reservas o
+              WHERE o.codigo_seguimiento = r.codigo_seguimiento AND o.id < r.id);
+
+INSERT INTO reservas_codigos (codigo_seguimiento, reserva_id, fecha_cita)
+SELECT codigo_seguimiento, id, fecha_cita FROM reservas WHERE codigo_seguimiento IS NOT NULL;
+
+CREATE FUNCTION registrar_codigo_reserva() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF NEW.codigo_seguimiento IS NOT DISTINCT FROM OLD.codigo_seguimiento
+           AND NEW.fecha_cita = OLD.fecha_cita THEN
+            RETURN NULL;
+        END IF;
+        DELETE FROM reservas_codigos
+        WHERE codigo_seguimiento = OLD.codigo_seguimiento AND reserva_id = OLD.id;
+    END IF;
+    IF NEW.codigo_seguimiento IS NOT NULL THEN
+        -- Una reserva que cambia de partición llega como INSERT con su propio código ya registrado
+        INSERT INTO reservas_codigos (codigo_seguimiento, reserva_id, fecha_cita)
+        VALUES (NEW.codigo_seguimiento, NEW.id, NEW.fecha_cita)
+        ON CONFLICT (codigo_seguimiento) DO UPDATE SET fecha_cita = EXCLUDED.fecha_cita
+            WHERE reservas_codigos.reserva_id = EXCLUDED.reserva_id;
+        IF NOT FOUND THEN
+            RAISE unique_violation USING
+                MESSAGE = format('El código de seguimiento %s ya existe', NEW.codigo_seguimiento),
+                CONSTRAINT = 'reservas_codigos_pkey';
+        END IF;
+    END IF;
+    RETURN NULL;
+END $$;
+
+-- Se define en la tabla padre: PostgreSQL lo replica en cada partición, también en las que se
+-- vinculen después (ParticionesRepository.crearParticion traslada filas sin disparar el trigger,
+-- sus códigos ya están registrados)
+CREATE TRIGGER tr_reservas_codigo
+    AFTER INSERT OR UPDATE OF codigo_seguimiento, fecha_cita ON reservas
+    FOR EACH ROW EXECUTE FUNCTION registrar_codigo_reserva();
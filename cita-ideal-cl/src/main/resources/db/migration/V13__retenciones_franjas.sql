@@ -0,0 +1,14 @@
+-- Retenciones de franjas durante el pago, compartidas por todos los nodos. Una fila por
+-- (plan, horario): la clave primaria impide que dos clientes retengan la misma franja y
+-- expira_en (reloj de la base de datos) la libera aunque el nodo que la creó se haya caído.
+-- Sin clave foránea a plan, como recordatorios_enviados: una retención vencida no estorba.
+CREATE TABLE retenciones_franjas (
+    plan_id     BIGINT       NOT NULL,
+    fecha_cita  TIMESTAMP(6) NOT NULL,
+    token       VARCHAR(64)  NOT NULL,
+    expira_en   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_retenciones_franjas PRIMARY KEY (plan_id, fecha_cita)
+);
+
+-- Limpieza de las retenciones vencidas que ningún nodo alcanzó a borrar
+CREATE INDEX ix_retenciones_franjas_expira_en ON retenciones_franjas (expira_en);
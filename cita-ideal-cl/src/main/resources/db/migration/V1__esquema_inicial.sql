@@ -0,0 +1,56 @@
+-- Esquema inicial, equivalente al que generaba Hibernate con ddl-auto=update.
+-- En bases ya existentes esta versión se marca como línea base y no se ejecuta.
+
+CREATE TABLE plan (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre       VARCHAR(100)   NOT NULL,
+    descripcion  TEXT,
+    precio_base  NUMERIC(38, 2) NOT NULL,
+    activo       BOOLEAN        NOT NULL,
+    imagen_url   VARCHAR(255)
+);
+
+CREATE TABLE reservas (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    plan_id             BIGINT       NOT NULL REFERENCES plan (id),
+    nombre_cliente      VARCHAR(255) NOT NULL,
+    email_cliente       VARCHAR(255) NOT NULL,
+    telefono_cliente    VARCHAR(255) NOT NULL,
+    fecha_cita          TIMESTAMP(6) NOT NULL,
+    estado              VARCHAR(255),
+    codigo_seguimiento  VARCHAR(255)
+);
+
+CREATE TABLE consultas (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre       VARCHAR(255),
+    email        VARCHAR(255),
+    mensaje      TEXT,
+    fecha_envio  TIMESTAMP(6),
+    plan_id      BIGINT REFERENCES plan (id)
+);
+
+CREATE TABLE fotos (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titulo       VARCHAR(255),
+    archivo      VARCHAR(255),
+    fecha_carga  TIMESTAMP(6)
+);
+
+CREATE TABLE roles (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre  VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE usuarios (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email     VARCHAR(255) NOT NULL UNIQUE,
+    username  VARCHAR(255) UNIQUE,
+    password  VARCHAR(255)
+);
+
+CREATE TABLE usuarios_roles (
+    usuario_id  BIGINT NOT NULL REFERENCES usuarios (id),
+    role_id     BIGINT NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (usuario_id, role_id)
+);
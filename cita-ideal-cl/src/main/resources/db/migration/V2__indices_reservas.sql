@@ -0,0 +1,49 @@
+-- Índices para las rutas de consulta de reservas.
+
+-- Las reservas dobles que pudo dejar la validación anterior (COUNT y luego INSERT) impedirían
+-- crear el índice único: en cada (plan, horario) se conserva la reserva activa más antigua y
+-- las demás se cancelan. Un estado nulo se trata como activo, igual que en la aplicación (y en
+-- V6, que lo convierte en PENDIENTE). Las reservas canceladas quedan en el log de la migración.
+DO $$
+DECLARE
+    canceladas TEXT;
+BEGIN
+    WITH duplicadas AS (
+        UPDATE reservas r
+        SET estado = 'CANCELADA'
+        WHERE r.estado IS DISTINCT FROM 'CANCELADA'
+          AND EXISTS (SELECT 1 FROM reservas o
+                      WHERE o.plan_id = r.plan_id AND o.fecha_cita = r.fecha_cita
+                        AND o.estado IS DISTINCT FROM 'CANCELADA' AND o.id < r.id)
+        RETURNING r.id
+    )
+    SELECT string_agg(id::TEXT, ', ' ORDER BY id) INTO canceladas FROM duplicadas;
+    IF canceladas IS NOT NULL THEN
+        RAISE WARNING 'Reservas duplicadas canceladas antes de crear ux_reservas_plan_fecha_activa: %', canceladas;
+    END IF;
+END $$;
+
+-- Índice único parcial: impide que dos reservas activas tomen el mismo plan y horario.
+-- También es el índice compuesto de existeReservaEnEsaFecha, findPlanesOcupadosEn y
+-- findFechasOcupadasEntre: su predicado coincide con el filtro estado <> 'CANCELADA',
+-- por lo que las reservas canceladas no ocupan espacio en él.
+-- (IF NOT EXISTS: las bases antiguas ya lo tienen desde el schema.sql anterior)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_reservas_plan_fecha_activa
+    ON reservas (plan_id, fecha_cita)
+    WHERE estado <> 'CANCELADA';
+
+-- Búsqueda pública por código de seguimiento (findByCodigoSeguimiento)
+CREATE INDEX IF NOT EXISTS ix_reservas_codigo_seguimiento
+    ON reservas (codigo_seguimiento);
+
+-- Historial del cliente (findByEmailCliente)
+CREATE INDEX IF NOT EXISTS ix_reservas_email_cliente
+    ON reservas (email_cliente);
+
+-- Listado del panel ordenado por fecha y precarga del índice de disponibilidad
+CREATE INDEX IF NOT EXISTS ix_reservas_fecha_cita
+    ON reservas (fecha_cita);
+
+-- Claves foráneas sin índice propio
+CREATE INDEX IF NOT EXISTS ix_consultas_plan_id
+    ON consultas (plan_id);
@@ -0,0 +1,15 @@
+-- Códigos de seguimiento únicos.
+
+-- Secuencia de la que GeneradorCodigo toma bloques de 100 números (INCREMENT = tamaño del bloque)
+CREATE SEQUENCE IF NOT EXISTS reservas_codigo_seq START WITH 1 INCREMENT BY 100;
+
+-- Los códigos antiguos (8 caracteres de un UUID) podían repetirse: se desambiguan con el id
+UPDATE reservas r
+SET codigo_seguimiento = r.codigo_seguimiento || '-' || r.id
+WHERE EXISTS (SELECT 1 FROM reservas o
+              WHERE o.codigo_seguimiento = r.codigo_seguimiento AND o.id < r.id);
+
+DROP INDEX IF EXISTS ix_reservas_codigo_seguimiento;
+
+CREATE UNIQUE INDEX ux_reservas_codigo_seguimiento
+    ON reservas (codigo_seguimiento);
@@ -0,0 +1,13 @@
+-- Índices para el listado administrativo paginado por clave (fecha_cita, id) descendente.
+-- Cada filtro tiene un índice cuyo sufijo es la clave de orden, de modo que una página
+-- se lee recorriendo el índice hacia atrás y se detiene al completar el LIMIT.
+
+-- Sin filtros o solo con rango de fechas (reemplaza al índice simple de fecha_cita)
+DROP INDEX IF EXISTS ix_reservas_fecha_cita;
+CREATE INDEX ix_reservas_fecha_id ON reservas (fecha_cita, id);
+
+-- Filtro por estado
+CREATE INDEX ix_reservas_estado_fecha_id ON reservas (estado, fecha_cita, id);
+
+-- Filtro por plan (con o sin estado)
+CREATE INDEX ix_reservas_plan_fecha_id ON reservas (plan_id, fecha_cita, id);
@@ -0,0 +1,25 @@
+-- Resumen diario de reservas por plan, mantenido de forma incremental por ReservaService
+-- y recalculado cada noche. El día corresponde a la fecha de la cita.
+CREATE TABLE estadisticas_reservas_dia (
+    plan_id      BIGINT         NOT NULL REFERENCES plan (id) ON DELETE CASCADE,
+    dia          DATE           NOT NULL,
+    pendientes   INTEGER        NOT NULL DEFAULT 0,
+    confirmadas  INTEGER        NOT NULL DEFAULT 0,
+    canceladas   INTEGER        NOT NULL DEFAULT 0,
+    ingresos     NUMERIC(38, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (plan_id, dia)
+);
+
+-- Las consultas del panel filtran por rango de días para todos los planes
+CREATE INDEX ix_estadisticas_reservas_dia_dia ON estadisticas_reservas_dia (dia);
+
+-- Carga inicial desde las reservas existentes
+INSERT INTO estadisticas_reservas_dia (plan_id, dia, pendientes, confirmadas, canceladas, ingresos)
+SELECT r.plan_id, CAST(r.fecha_cita AS DATE),
+       COUNT(*) FILTER (WHERE r.estado = 'PENDIENTE'),
+       COUNT(*) FILTER (WHERE r.estado = 'CONFIRMADA'),
+       COUNT(*) FILTER (WHERE r.estado = 'CANCELADA'),
+       COALESCE(SUM(p.precio_base) FILTER (WHERE r.estado = 'CONFIRMADA'), 0)
+FROM reservas r
+JOIN plan p ON p.id = r.plan_id
+GROUP BY r.plan_id, CAST(r.fecha_cita AS DATE);
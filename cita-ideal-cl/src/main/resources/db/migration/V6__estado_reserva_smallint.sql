@@ -0,0 +1,21 @@
+-- El estado de la reserva pasa de texto libre a SMALLINT con los códigos de EstadoReserva:
+-- 0 = PENDIENTE, 1 = CONFIRMADA, 2 = CANCELADA. Ocupa 2 bytes en lugar de un VARCHAR
+-- y reduce los índices que lo incluyen (ix_reservas_estado_fecha_id se reconstruye solo).
+
+-- El predicado del índice parcial compara con el texto 'CANCELADA': se recrea tras la conversión
+DROP INDEX ux_reservas_plan_fecha_activa;
+
+-- Cualquier valor desconocido o nulo queda como PENDIENTE, que es como lo trataba la aplicación
+ALTER TABLE reservas
+    ALTER COLUMN estado TYPE SMALLINT USING CASE estado
+        WHEN 'CONFIRMADA' THEN 1
+        WHEN 'CANCELADA' THEN 2
+        ELSE 0
+    END,
+    ALTER COLUMN estado SET DEFAULT 0,
+    ALTER COLUMN estado SET NOT NULL,
+    ADD CONSTRAINT ck_reservas_estado CHECK (estado IN (0, 1, 2));
+
+CREATE UNIQUE INDEX ux_reservas_plan_fecha_activa
+    ON reservas (plan_id, fecha_cita)
+    WHERE estado <> 2;
@@ -0,0 +1,73 @@
+-- reservas pasa a ser una tabla particionada por mes de fecha_cita. Casi todo el tráfico
+-- (disponibilidad, panel, recordatorios) toca las próximas semanas: con particiones el
+-- planificador descarta los meses que no corresponden y cada índice consultado es pequeño.
+-- ParticionesService crea las particiones futuras y archiva las antiguas; las citas que
+-- caigan fuera de las particiones existentes van a reservas_default hasta que se cree su mes.
+
+ALTER TABLE reservas RENAME TO reservas_sin_particionar;
+
+-- La secuencia de identidad conserva el nombre original; se renombra para que la nueva tabla use reservas_id_seq
+DO $$
+DECLARE
+    secuencia TEXT := pg_get_serial_sequence('reservas_sin_particionar', 'id');
+BEGIN
+    IF secuencia IS NOT NULL THEN
+        EXECUTE format('ALTER SEQUENCE %s RENAME TO reservas_sin_particionar_id_seq', secuencia);
+    END IF;
+END $$;
+
+-- La clave primaria de una tabla particionada debe incluir la columna de partición
+CREATE TABLE reservas (
+    id                  BIGINT       GENERATED BY DEFAULT AS IDENTITY,
+    plan_id             BIGINT       NOT NULL REFERENCES plan (id),
+    nombre_cliente      VARCHAR(255) NOT NULL,
+    email_cliente       VARCHAR(255) NOT NULL,
+    telefono_cliente    VARCHAR(255) NOT NULL,
+    fecha_cita          TIMESTAMP(6) NOT NULL,
+    estado              SMALLINT     NOT NULL DEFAULT 0 CONSTRAINT ck_reservas_estado CHECK (estado IN (0, 1, 2)),
+    codigo_seguimiento  VARCHAR(255),
+    CONSTRAINT pk_reservas PRIMARY KEY (id, fecha_cita)
+) PARTITION BY RANGE (fecha_cita);
+
+-- Un mes por partición (reservas_pAAAAMM), desde la cita más antigua hasta 12 meses adelante
+DO $$
+DECLARE
+    mes DATE := date_trunc('month', LEAST(
+            COALESCE((SELECT min(fecha_cita) FROM reservas_sin_particionar), now()), now()));
+    ultimo DATE := date_trunc('month', now()) + INTERVAL '12 months';
+BEGIN
+    WHILE mes <= ultimo LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF reservas FOR VALUES FROM (%L) TO (%L)',
+                       'reservas_p' || to_char(mes, 'YYYYMM'), mes, (mes + INTERVAL '1 month')::DATE);
+        mes := mes + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE reservas_default PARTITION OF reservas DEFAULT;
+
+INSERT INTO reservas (id, plan_id, nombre_cliente, email_cliente, telefono_cliente,
+                      fecha_cita, estado, codigo_seguimiento)
+SELECT id, plan_id, nombre_cliente, email_cliente, telefono_cliente,
+       fecha_cita, estado, codigo_seguimiento
+FROM reservas_sin_particionar;
+
+SELECT setval(pg_get_serial_sequence('reservas', 'id'), COALESCE(max(id), 0) + 1, false) FROM reservas;
+
+DROP TABLE reservas_sin_particionar;
+
+-- Índices: se definen en la tabla padre y PostgreSQL los crea en cada partición.
+-- El índice único parcial incluye fecha_cita, por lo que sigue siendo válido con particiones.
+CREATE UNIQUE INDEX ux_reservas_plan_fecha_activa
+    ON reservas (plan_id, fecha_cita)
+    WHERE estado <> 2;
+
+-- Un índice único sin la columna de partición no está permitido: la unicidad del código
+-- la garantiza GeneradorCodigo (cada código sale de un número distinto de reservas_codigo_seq)
+CREATE INDEX ix_reservas_codigo_seguimiento ON reservas (codigo_seguimiento);
+CREATE INDEX ix_reservas_email_cliente ON reservas (email_cliente);
+CREATE INDEX ix_reservas_fecha_id ON reservas (fecha_cita, id);
+CREATE INDEX ix_reservas_estado_fecha_id ON reservas (estado, fecha_cita, id);
+CREATE INDEX ix_reservas_plan_fecha_id ON reservas (plan_id, fecha_cita, id);
+
+-- Esquema donde quedan las particiones antiguas desvinculadas (consultables, pero fuera de reservas)
+CREATE SCHEMA IF NOT EXISTS archivo;
@@ -0,0 +1,17 @@
+-- Estado de los recordatorios por correo de cada reserva (uno por reserva y tipo).
+-- El despachador reclama la fila antes de enviar y la marca al terminar, por lo que un
+-- reinicio o un segundo nodo no vuelve a enviar un recordatorio ya entregado.
+-- estado: 0 = ENVIANDO, 1 = ENVIADO, 2 = FALLIDO. tipo: códigos de RecordatorioService.Tipo.
+-- Sin clave foránea a reservas: una FK impediría archivar (DETACH) sus particiones.
+CREATE TABLE recordatorios_enviados (
+    reserva_id      BIGINT       NOT NULL,
+    tipo            SMALLINT     NOT NULL,
+    fecha_cita      TIMESTAMP(6) NOT NULL,
+    estado          SMALLINT     NOT NULL,
+    intentos        INTEGER      NOT NULL DEFAULT 1,
+    actualizado_en  TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_recordatorios_enviados PRIMARY KEY (reserva_id, tipo)
+);
+
+-- Limpieza de los recordatorios de citas ya pasadas
+CREATE INDEX ix_recordatorios_fecha_cita ON recordatorios_enviados (fecha_cita);
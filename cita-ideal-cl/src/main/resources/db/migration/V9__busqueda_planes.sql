@@ -0,0 +1,18 @@
+-- Búsqueda de texto completo en el catálogo de planes.
+
+-- Configuración en español que ignora tildes: "cena romántica", "CENA ROMANTICA" y
+-- "cenas romanticas" producen los mismos lexemas.
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+CREATE TEXT SEARCH CONFIGURATION es_sin_acentos (COPY = pg_catalog.spanish);
+ALTER TEXT SEARCH CONFIGURATION es_sin_acentos
+    ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+
+-- Vector de búsqueda mantenido por la base de datos; el nombre pesa más que la descripción
+-- en el ranking. No se mapea en la entidad Plan.
+ALTER TABLE plan ADD COLUMN busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('es_sin_acentos', coalesce(nombre, '')), 'A') ||
+    setweight(to_tsvector('es_sin_acentos', coalesce(descripcion, '')), 'B')
+) STORED;
+
+CREATE INDEX ix_plan_busqueda ON plan USING GIN (busqueda);
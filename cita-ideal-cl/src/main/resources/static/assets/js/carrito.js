@@ -0,0 +1,116 @@
+// Acciones del carrito sin recargar la página: se llama a /api/carrito y se actualiza
+// el contenido con el estado que devuelve. Si algo falla (sin sesión, sin red), se sigue
+// el enlace original, que hace lo mismo con redirección. El estado trae además la
+// disponibilidad de la fecha elegida para cada plan, consultada de una sola vez.
+document.addEventListener('DOMContentLoaded', function() {
+    const csrfToken = document.querySelector('meta[name="_csrf"]');
+    const csrfHeader = document.querySelector('meta[name="_csrf_header"]');
+    const formatoPesos = new Intl.NumberFormat('es-CL', { maximumFractionDigits: 0 });
+
+    function llamar(metodo, url) {
+        const headers = { 'Accept': 'application/json' };
+        if (csrfToken && csrfHeader) headers[csrfHeader.content] = csrfToken.content;
+        return fetch(url, { method: metodo, headers: headers }).then(response => {
+            const tipo = response.headers.get('Content-Type') || '';
+            // Sin sesión Spring Security redirige al login, que responde HTML
+            if (response.redirected || !tipo.includes('application/json')) throw new Error('Sin JSON');
+            return response.json().then(estado => ({ ok: response.ok, estado: estado }));
+        });
+    }
+
+    function pesos(monto) {
+        return '$' + formatoPesos.format(monto);
+    }
+
+    function pintar(estado) {
+        document.querySelectorAll('[data-carrito-contador]').forEach(e => e.textContent = estado.itemsCount);
+        const total = document.querySelector('[data-carrito-total]');
+        if (total) total.textContent = pesos(estado.total);
+        document.querySelectorAll('[data-plan-id]').forEach(fila => {
+            const linea = estado.items.find(i => String(i.planId) === fila.dataset.planId);
+            if (!linea) {
+                fila.remove();
+                return;
+            }
+            const cantidad = fila.querySelector('[data-carrito-cantidad]');
+            if (cantidad) cantidad.textContent = linea.cantidad;
+            const subtotal = fila.querySelector('[data-carrito-subtotal]');
+            if (subtotal) subtotal.textContent = pesos(linea.subtotal);
+            const disponible = fila.querySelector('[data-carrito-disponible]');
+            if (disponible) pintarDisponibilidad(disponible, linea.disponible);
+        });
+        const vacio = document.getElementById('carrito-vacio');
+        const lleno = document.getElementById('carrito-lleno');
+        if (vacio && lleno) {
+            vacio.classList.toggle('d-none', estado.itemsCount > 0);
+            lleno.classList.toggle('d-none', estado.itemsCount === 0);
+        }
+    }
+
+    function pintarDisponibilidad(etiqueta, disponible) {
+        etiqueta.classList.remove('bg-secondary', 'bg-success', 'bg-danger');
+        if (disponible === null || disponible === undefined) {
+            etiqueta.classList.add('bg-secondary');
+            etiqueta.textContent = 'Sin fecha';
+        } else if (disponible) {
+            etiqueta.classList.add('bg-success');
+            etiqueta.textContent = 'Disponible';
+        } else {
+            etiqueta.classList.add('bg-danger');
+            etiqueta.textContent = 'No disponible';
+        }
+    }
+
+    function accion(enlace, metodo, url, alTerminar) {
+        enlace.addEventListener('click', function(evento) {
+            if (enlace.dataset.confirmar && !confirm(enlace.dataset.confirmar)) {
+                evento.preventDefault();
+                return;
+            }
+            evento.preventDefault();
+            enlace.classList.add('disabled');
+            llamar(metodo, url)
+                .then(respuesta => {
+                    pintar(respuesta.estado);
+                    if (alTerminar) alTerminar(respuesta.ok);
+                })
+                .catch(() => { window.location.href = enlace.href; })
+                .finally(() => enlace.classList.remove('disabled'));
+        });
+    }
+
+    document.querySelectorAll('a[data-carrito-agregar]').forEach(enlace => {
+        const original = enlace.innerHTML;
+        accion(enlace, 'POST', '/api/carrito/items/' + enlace.dataset.carritoAgregar, ok => {
+            enlace.innerHTML = ok ? '<i class="bi bi-check-lg me-2"></i>Agregado al carrito' : 'No disponible';
+            setTimeout(() => { enlace.innerHTML = original; }, 2000);
+        });
+    });
+
+    document.querySelectorAll('a[data-carrito-quitar]').forEach(enlace =>
+        accion(enlace, 'DELETE', '/api/carrito/items/' + enlace.dataset.carritoQuitar));
+
+    document.querySelectorAll('a[data-carrito-vaciar]').forEach(enlace =>
+        accion(enlace, 'DELETE', '/api/carrito'));
+
+    // Fecha y hora de cada plan: al completar ambas se guarda en el carrito y se repinta
+    // la disponibilidad de todos los planes con la respuesta
+    document.querySelectorAll('[data-plan-id]').forEach(fila => {
+        const fecha = fila.querySelector('[data-carrito-fecha-input]');
+        const hora = fila.querySelector('[data-carrito-hora-input]');
+        if (!fecha || !hora) return;
+        const elegir = () => {
+            if (!fecha.value || !hora.value) return;
+            const url = '/api/carrito/items/' + fila.dataset.planId + '/fecha?fecha='
+                + encodeURIComponent(fecha.value + 'T' + hora.value);
+            llamar('PUT', url).then(respuesta => pintar(respuesta.estado)).catch(() => {});
+        };
+        fecha.addEventListener('change', elegir);
+        hora.addEventListener('change', elegir);
+    });
+
+    // Disponibilidad inicial de todas las fechas ya elegidas, en una sola llamada
+    if (document.querySelector('[data-carrito-disponible]')) {
+        llamar('GET', '/api/carrito').then(respuesta => pintar(respuesta.estado)).catch(() => {});
+    }
+});
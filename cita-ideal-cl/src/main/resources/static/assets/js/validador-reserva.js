@@ -4,7 +4,7 @@ document.addEventListener('DOMContentLoaded', function() {
     const horaInput = document.querySelector('select[name="horaFija"]');
     const btnReservar = document.querySelector('button[type="submit"]');
     const dataContainer = document.getElementById('reserva-data');
-    
+
     // 2. Obtenemos el ID del plan
     const planId = dataContainer ? dataContainer.getAttribute('data-plan-id') : null;
 
@@ -17,28 +17,90 @@ document.addEventListener('DOMContentLoaded', function() {
         if (btnReservar) btnReservar.parentNode.insertBefore(alertaError, btnReservar);
     }
 
+    // 4. Mapas de ocupación ya descargados, uno por mes ("YYYY-MM")
+    const mesesCargados = {};
+
+    function cargarMes(mes) {
+        if (!mesesCargados[mes]) {
+            mesesCargados[mes] = fetch(`/reservas/disponibilidad-mes?planId=${planId}&mes=${mes}`)
+                .then(response => response.json());
+        }
+        return mesesCargados[mes];
+    }
+
+    // Cada día llega como un número donde el bit i es la franja que parte en el minuto i * minutosPorFranja
+    function franjaOcupada(mapa, fecha, hora) {
+        const dia = parseInt(fecha.substring(8, 10), 10);
+        const [hh, mm] = hora.split(':').map(Number);
+        const franja = Math.floor((hh * 60 + mm) / mapa.minutosPorFranja);
+        const bits = mapa.dias[dia - 1] || 0;
+        return Math.floor(bits / Math.pow(2, franja)) % 2 === 1;
+    }
+
+    function pintarHorarios() {
+        const fecha = fechaInput.value;
+        if (!fecha || !planId) return;
+
+        cargarMes(fecha.substring(0, 7)).then(mapa => {
+            Array.from(horaInput.options).forEach(opcion => {
+                if (!opcion.value) return;
+                const ocupada = franjaOcupada(mapa, fecha, opcion.value);
+                opcion.disabled = ocupada;
+                opcion.textContent = opcion.textContent.replace(' (ocupado)', '') + (ocupada ? ' (ocupado)' : '');
+            });
+            chequearDisponibilidad();
+        });
+    }
+
     function chequearDisponibilidad() {
         const fecha = fechaInput.value;
         const hora = horaInput.value;
 
         if (fecha && hora && planId) {
-            fetch(`/reservas/validar-disponibilidad?planId=${planId}&fecha=${fecha}&hora=${hora}`)
-                .then(response => response.json())
-                .then(data => {
-                    if (!data.disponible) {
-                        alertaError.textContent = "❌ Este horario ya está ocupado. Por favor elige otro.";
-                        alertaError.classList.remove('d-none');
-                        btnReservar.disabled = true;
-                    } else {
-                        alertaError.classList.add('d-none');
-                        btnReservar.disabled = false;
-                    }
-                });
+            cargarMes(fecha.substring(0, 7)).then(mapa => {
+                if (franjaOcupada(mapa, fecha, hora)) {
+                    alertaError.textContent = "❌ Este horario ya está ocupado. Por favor elige otro.";
+                    alertaError.classList.remove('d-none');
+                    btnReservar.disabled = true;
+                } else {
+                    alertaError.classList.add('d-none');
+                    btnReservar.disabled = false;
+                }
+            });
         }
     }
 
+    // 5. Cambios en vivo: otro cliente tomó o liberó una franja de este plan
+    function escucharCambios() {
+        const eventos = new EventSource(`/reservas/eventos?planId=${planId}`);
+        // Primer evento de cada conexión (también al reconectarse): pudo perderse algún
+        // cambio, así que se descartan los meses descargados y se vuelven a pedir
+        eventos.addEventListener('sincronizar', () => {
+            Object.keys(mesesCargados).forEach(mes => delete mesesCargados[mes]);
+            pintarHorarios();
+        });
+        eventos.addEventListener('franja', evento => {
+            const cambio = JSON.parse(evento.data);
+            const mes = cambio.fecha.substring(0, 7);
+            if (!mesesCargados[mes]) return;
+
+            mesesCargados[mes].then(mapa => {
+                const dia = parseInt(cambio.fecha.substring(8, 10), 10);
+                const franja = Math.floor((parseInt(cambio.fecha.substring(11, 13), 10) * 60
+                        + parseInt(cambio.fecha.substring(14, 16), 10)) / mapa.minutosPorFranja);
+                const valor = Math.pow(2, franja);
+                const ocupada = Math.floor((mapa.dias[dia - 1] || 0) / valor) % 2 === 1;
+                if (cambio.ocupada && !ocupada) mapa.dias[dia - 1] += valor;
+                if (!cambio.ocupada && ocupada) mapa.dias[dia - 1] -= valor;
+                pintarHorarios();
+            });
+        });
+    }
+
     if (fechaInput && horaInput) {
-        fechaInput.addEventListener('change', chequearDisponibilidad);
+        fechaInput.addEventListener('change', pintarHorarios);
         horaInput.addEventListener('change', chequearDisponibilidad);
+        pintarHorarios();
+        if (planId && window.EventSource) escucharCambios();
     }
-});
\ No newline at end of file
+});
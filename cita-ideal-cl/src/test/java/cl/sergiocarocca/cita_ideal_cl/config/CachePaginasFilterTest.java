@@ -0,0 +1,192 @@
+package cl.sergiocarocca.cita_ideal_cl.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.math.BigDecimal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+import cl.sergiocarocca.cita_ideal_cl.service.PlanService;
+import cl.sergiocarocca.cita_ideal_cl.service.VersionContenido;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Verifica con la cadena de filtros completa (Spring Session JDBC y Spring Security) que
+ * {@link CachePaginasFilter} entrega a cada visitante su propio token CSRF, deja pasar a
+ * los usuarios autenticados y las sesiones con mensajes flash, responde 304 a un ETag
+ * vigente y descarta las páginas al cambiar la {@link VersionContenido}. Requiere Docker.
+ */
+@SpringBootTest(properties = "citaideal.recordatorios.habilitado=false")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class CachePaginasFilterTest {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CachePaginasFilter cachePaginas;
+
+    @Autowired
+    private VersionContenido versionContenido;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void limpiar() {
+        // Cada prueba parte sin páginas vigentes
+        versionContenido.incrementar();
+    }
+
+    @Test
+    void cadaVisitanteAnonimoRecibeSuPropioTokenCsrf() throws Exception {
+        MvcResult primero = mockMvc.perform(get("/")).andReturn();
+        long aciertos = contador("aciertos");
+        MvcResult segundo = mockMvc.perform(get("/")).andReturn();
+        assertEquals(aciertos + 1, contador("aciertos"));
+
+        Cookie sesionSegundo = segundo.getResponse().getCookie("SESSION");
+        assertNotNull(sesionSegundo);
+        assertNotEquals(primero.getResponse().getCookie("SESSION").getValue(), sesionSegundo.getValue());
+        assertFalse(segundo.getResponse().getContentAsString().contains("\u0000"));
+
+        // El token de la página guardada pertenece al primer visitante: con la sesión del segundo se rechaza
+        assertEquals(403, enviarConsulta(sesionSegundo, csrf(primero)).getResponse().getStatus());
+        assertEquals(302, enviarConsulta(sesionSegundo, csrf(segundo)).getResponse().getStatus());
+    }
+
+    @Test
+    void unMensajeFlashPendienteNoUsaLaCache() throws Exception {
+        MvcResult visita = mockMvc.perform(get("/")).andReturn();
+        Cookie sesion = visita.getResponse().getCookie("SESSION");
+        assertEquals(302, enviarConsulta(sesion, csrf(visita)).getResponse().getStatus());
+
+        long aciertos = contador("aciertos");
+        String conMensaje = mockMvc.perform(get("/").cookie(sesion)).andReturn().getResponse().getContentAsString();
+        assertEquals(aciertos, contador("aciertos"));
+        assertTrue(conMensaje.contains("Tu consulta ha sido enviada"));
+
+        // El mensaje no queda guardado para el resto de los visitantes
+        String otroVisitante = mockMvc.perform(get("/")).andReturn().getResponse().getContentAsString();
+        assertFalse(otroVisitante.contains("Tu consulta ha sido enviada"));
+    }
+
+    @Test
+    void unUsuarioAutenticadoNoUsaLaCache() throws Exception {
+        mockMvc.perform(get("/productos")).andReturn();
+        Cookie sesion = iniciarSesion();
+
+        long aciertos = contador("aciertos");
+        long fallos = contador("fallos");
+        MvcResult resultado = mockMvc.perform(get("/productos").cookie(sesion)).andReturn();
+        assertEquals(200, resultado.getResponse().getStatus());
+        assertEquals(aciertos, contador("aciertos"));
+        assertEquals(fallos, contador("fallos"));
+        assertTrue(resultado.getResponse().getContentAsString().contains("/logout"));
+    }
+
+    @Test
+    void unEtagVigenteRecibe304SinCuerpo() throws Exception {
+        String etag = mockMvc.perform(get("/productos")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MvcResult revalidacion = mockMvc.perform(get("/productos").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(304, revalidacion.getResponse().getStatus());
+        assertEquals(0, revalidacion.getResponse().getContentAsByteArray().length);
+
+        MvcResult distinto = mockMvc.perform(get("/productos").header(HttpHeaders.IF_NONE_MATCH, "\"otro\"")).andReturn();
+        assertEquals(200, distinto.getResponse().getStatus());
+        assertEquals(etag, distinto.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void incrementarLaVersionDescartaLaPagina() throws Exception {
+        String etag = mockMvc.perform(get("/productos")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long fallos = contador("fallos");
+
+        versionContenido.incrementar();
+        MvcResult nueva = mockMvc.perform(get("/productos").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(200, nueva.getResponse().getStatus());
+        assertEquals(fallos + 1, contador("fallos"));
+        assertNotEquals(etag, nueva.getResponse().getHeader(HttpHeaders.ETAG));
+
+        // Guardar un plan incrementa la versión: la página siguiente ya lo muestra
+        Plan plan = new Plan();
+        plan.setNombre("Plan recién publicado");
+        plan.setDescripcion("Descripción");
+        plan.setPrecioBase(new BigDecimal("45000"));
+        plan.setActivo(true);
+        planService.guardar(plan);
+        assertTrue(mockMvc.perform(get("/productos")).andReturn().getResponse().getContentAsString()
+                .contains("Plan recién publicado"));
+    }
+
+    private MvcResult enviarConsulta(Cookie sesion, String token) throws Exception {
+        return mockMvc.perform(post("/contacto/enviar").cookie(sesion)
+                .param("nombre", "Cliente").param("email", "cliente@correo.cl")
+                .param("mensaje", "Hola").param("_csrf", token)).andReturn();
+    }
+
+    private Cookie iniciarSesion() throws Exception {
+        jdbcTemplate.update("DELETE FROM usuarios WHERE username = 'cache@correo.cl'");
+        jdbcTemplate.update("INSERT INTO usuarios (email, username, password) VALUES (?, ?, ?)",
+                "cache@correo.cl", "cache@correo.cl", passwordEncoder.encode("clave123"));
+
+        MvcResult login = mockMvc.perform(get("/login")).andReturn();
+        Cookie sesion = login.getResponse().getCookie("SESSION");
+        MockHttpServletRequestBuilder formulario = post("/login").cookie(sesion)
+                .param("username", "cache@correo.cl").param("password", "clave123").param("_csrf", csrf(login));
+        MvcResult autenticado = mockMvc.perform(formulario).andReturn();
+        assertEquals(302, autenticado.getResponse().getStatus());
+        assertFalse(autenticado.getResponse().getRedirectedUrl().contains("error"));
+        // Al autenticarse cambia el id de la sesión
+        Cookie nueva = autenticado.getResponse().getCookie("SESSION");
+        return nueva != null ? nueva : sesion;
+    }
+
+    private long contador(String nombre) {
+        return cachePaginas.estadisticas().get(nombre);
+    }
+
+    private static String csrf(MvcResult resultado) throws Exception {
+        Matcher m = CSRF.matcher(resultado.getResponse().getContentAsString());
+        assertTrue(m.find(), "La página no tiene token CSRF");
+        return m.group(1);
+    }
+}
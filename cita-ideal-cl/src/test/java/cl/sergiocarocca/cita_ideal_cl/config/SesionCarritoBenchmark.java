@@ -0,0 +1,90 @@
+package cl.sergiocarocca.cita_ideal_cl.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.CarritoCompacto;
+
+/**
+ * Compara lo que cuesta guardar y leer el carrito como atributo de sesión con el formato
+ * propio de {@link SesionesConfig} frente a la serialización estándar de Java, que es la
+ * que Spring Session usaría por omisión. Al terminar imprime el tamaño de cada formato.
+ * El costo del almacén JDBC completo se mide en {@link SesionJdbcCarritoBenchmark}.
+ * <p>
+ * Ejecución (ver pom.xml): {@code java -cp target/test-classes:target/classes:$(cat target/benchmark.cp)
+ * cl.sergiocarocca.cita_ideal_cl.config.SesionCarritoBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SesionCarritoBenchmark {
+
+    private final ConversionService conversion = new SesionesConfig().springSessionConversionService();
+    private final SerializingConverter serializar = new SerializingConverter();
+    private final DeserializingConverter deserializar = new DeserializingConverter();
+
+    private CarritoCompacto carrito;
+    private byte[] compacto;
+    private byte[] estandar;
+
+    @Setup
+    public void preparar() {
+        carrito = carritoDePrueba();
+        compacto = conversion.convert(carrito, byte[].class);
+        estandar = serializar.convert(carrito);
+    }
+
+    @Benchmark
+    public byte[] guardarCompacto() {
+        return conversion.convert(carrito, byte[].class);
+    }
+
+    @Benchmark
+    public byte[] guardarEstandar() {
+        return serializar.convert(carrito);
+    }
+
+    @Benchmark
+    public Object leerCompacto() {
+        return conversion.convert(compacto, Object.class);
+    }
+
+    @Benchmark
+    public Object leerEstandar() {
+        return deserializar.convert(estandar);
+    }
+
+    private static CarritoCompacto carritoDePrueba() {
+        CarritoCompacto carrito = new CarritoCompacto();
+        for (long planId = 1; planId <= 5; planId++) {
+            carrito.agregar(planId * 37, (int) planId);
+        }
+        return carrito;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CarritoCompacto carrito = carritoDePrueba();
+        System.out.printf("Carrito de 5 planes: %d bytes compacto, %d bytes serialización estándar%n",
+                new SesionesConfig().springSessionConversionService().convert(carrito, byte[].class).length,
+                new SerializingConverter().convert(carrito).length);
+        new Runner(new OptionsBuilder().include(SesionCarritoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,160 @@
+package cl.sergiocarocca.cita_ideal_cl.config;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import cl.sergiocarocca.cita_ideal_cl.CitaIdealClApplication;
+
+/**
+ * Mide de punta a punta los endpoints de {@code /api/carrito} con la aplicación real
+ * (Tomcat, Spring Security y Spring Session) para conocer lo que agrega guardar la sesión
+ * en PostgreSQL: {@code almacen=jdbc} usa el repositorio JDBC configurado en
+ * {@link SesionesConfig} y {@code almacen=memoria} reemplaza solo el repositorio de
+ * sesiones por un {@link MapSessionRepository}. Cada operación es una petición HTTP de un
+ * usuario autenticado con un carrito de un plan.
+ * <p>
+ * Requiere la base de datos de application.properties o la indicada con
+ * {@code -Dspring.datasource.url=...}, que se traspasa al proceso del benchmark.
+ * <p>
+ * Ejecución (ver pom.xml): {@code java -cp target/test-classes:target/classes:$(cat target/benchmark.cp)
+ * cl.sergiocarocca.cita_ideal_cl.config.SesionJdbcCarritoBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class SesionJdbcCarritoBenchmark {
+
+    private static final Pattern CSRF_FORMULARIO = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+    private static final Pattern CSRF_META = Pattern.compile("<meta name=\"_csrf\" content=\"([^\"]+)\"");
+
+    @Param({"jdbc", "memoria"})
+    public String almacen;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private String base;
+    private String csrf;
+    private long planId;
+
+    /**
+     * Repositorio de sesiones en memoria para la variante {@code memoria}. Se registra como
+     * fuente de la aplicación (no se escanea) y desplaza al repositorio JDBC.
+     */
+    @EnableSpringHttpSession
+    static class SesionesEnMemoria {
+
+        @Bean
+        MapSessionRepository sessionRepository() {
+            return new MapSessionRepository(new ConcurrentHashMap<>());
+        }
+    }
+
+    @Setup
+    public void iniciar() throws Exception {
+        SpringApplication aplicacion = "memoria".equals(almacen)
+                ? new SpringApplication(CitaIdealClApplication.class, SesionesEnMemoria.class)
+                : new SpringApplication(CitaIdealClApplication.class);
+        contexto = aplicacion.run("--server.port=0", "--citaideal.recordatorios.habilitado=false",
+                "--logging.level.root=WARN");
+        base = "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort();
+
+        planId = contexto.getBean(JdbcTemplate.class).queryForObject(
+                "INSERT INTO plan (nombre, descripcion, precio_base, activo) "
+                + "VALUES ('Plan benchmark', 'Benchmark de sesiones', 50000, true) RETURNING id", Long.class);
+
+        cliente = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+        String tokenLogin = extraer(CSRF_FORMULARIO, enviar(HttpRequest.newBuilder(URI.create(base + "/login"))));
+        String formulario = "username=" + URLEncoder.encode("admin@tucitaideal.cl", StandardCharsets.UTF_8)
+                + "&password=admin123&_csrf=" + URLEncoder.encode(tokenLogin, StandardCharsets.UTF_8);
+        enviar(HttpRequest.newBuilder(URI.create(base + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario)));
+        csrf = extraer(CSRF_META, enviar(HttpRequest.newBuilder(URI.create(base + "/carrito/ver"))));
+        api("POST", "/api/carrito/items/" + planId);
+    }
+
+    @TearDown
+    public void detener() throws Exception {
+        api("DELETE", "/api/carrito");
+        contexto.getBean(JdbcTemplate.class).update("DELETE FROM plan WHERE id = ?", planId);
+        contexto.close();
+    }
+
+    /** Lectura: carga la sesión y el carrito; solo se actualiza la hora del último acceso. */
+    @Benchmark
+    public String verCarrito() throws Exception {
+        return api("GET", "/api/carrito");
+    }
+
+    /** Escritura: dos peticiones que modifican el atributo del carrito (agregar y quitar una unidad). */
+    @Benchmark
+    public String agregarYQuitar() throws Exception {
+        api("POST", "/api/carrito/items/" + planId);
+        return api("DELETE", "/api/carrito/items/" + planId);
+    }
+
+    private String api(String metodo, String ruta) throws Exception {
+        return enviar(HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("X-CSRF-TOKEN", csrf)
+                .method(metodo, HttpRequest.BodyPublishers.noBody()));
+    }
+
+    private String enviar(HttpRequest.Builder peticion) throws Exception {
+        HttpResponse<String> respuesta = cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() >= 400) {
+            throw new IllegalStateException(respuesta.statusCode() + " en " + respuesta.uri());
+        }
+        return respuesta.body();
+    }
+
+    private static String extraer(Pattern patron, String html) {
+        Matcher m = patron.matcher(html);
+        if (!m.find()) {
+            throw new IllegalStateException("No se encontró el token CSRF");
+        }
+        return m.group(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        OptionsBuilder opciones = new OptionsBuilder();
+        opciones.include(SesionJdbcCarritoBenchmark.class.getSimpleName());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(nombre -> nombre.startsWith("spring."))
+                .forEach(nombre -> opciones.jvmArgsAppend("-D" + nombre + "=" + System.getProperty(nombre)));
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,33 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class DineroTest {
+
+    @Test
+    void convierteExactamenteDesdeNumeric() {
+        assertEquals(new Dinero(50_000), Dinero.de(new BigDecimal("50000.00")));
+        assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("50000.50")));
+        assertEquals(0, new BigDecimal("50000.00").compareTo(new Dinero(50_000).aBigDecimal()));
+    }
+
+    @Test
+    void formateaConSeparadorDeMiles() {
+        assertEquals("$0", Dinero.CERO.toString());
+        assertEquals("$990", new Dinero(990).toString());
+        assertEquals("$50.000", new Dinero(50_000).toString());
+        assertEquals("$1.250.000", new Dinero(1_250_000).toString());
+        assertEquals("-$5.000", new Dinero(-5_000).toString());
+    }
+
+    @Test
+    void detectaDesbordes() {
+        assertEquals(new Dinero(135_000), new Dinero(35_000).mas(new Dinero(50_000).por(2)));
+        assertThrows(ArithmeticException.class, () -> new Dinero(Long.MAX_VALUE).por(2));
+    }
+}
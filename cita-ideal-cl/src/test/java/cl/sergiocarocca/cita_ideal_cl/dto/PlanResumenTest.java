@@ -0,0 +1,34 @@
+package cl.sergiocarocca.cita_ideal_cl.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class PlanResumenTest {
+
+    @Test
+    void conservaLasDescripcionesCortas() {
+        assertEquals("Cena a la luz de las velas.", PlanResumen.extracto("Cena a la luz de las velas."));
+        assertEquals("x".repeat(PlanResumen.LARGO_DESCRIPCION),
+                PlanResumen.extracto("x".repeat(PlanResumen.LARGO_DESCRIPCION)));
+        assertNull(PlanResumen.extracto(null));
+    }
+
+    @Test
+    void cortaEnElUltimoEspacioYAgregaPuntosSuspensivos() {
+        String texto = "Una velada, ".repeat(20);
+        String extracto = new PlanResumen(1L, "Plan", null, null,
+                texto.substring(0, PlanResumen.LARGO_DESCRIPCION + 1)).descripcion();
+
+        // El carácter 160 cae dentro de "velada": se corta en el espacio anterior
+        assertEquals("Una velada, ".repeat(13) + "Una…", extracto);
+    }
+
+    @Test
+    void cortaEnElLimiteSiNoHayEspacios() {
+        String extracto = PlanResumen.extracto("x".repeat(PlanResumen.LARGO_DESCRIPCION + 1));
+
+        assertEquals("x".repeat(PlanResumen.LARGO_DESCRIPCION) + "…", extracto);
+    }
+}
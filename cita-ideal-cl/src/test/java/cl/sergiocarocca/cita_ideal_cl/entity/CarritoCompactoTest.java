@@ -0,0 +1,68 @@
+package cl.sergiocarocca.cita_ideal_cl.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CarritoCompactoTest {
+
+    @Test
+    void acumulaCantidadesYConservaElOrden() {
+        CarritoCompacto carrito = new CarritoCompacto();
+        for (long id = 1; id <= 6; id++) {
+            carrito.agregar(id, 1);
+        }
+        carrito.agregar(3, 2);
+        carrito.quitar(2);
+
+        assertEquals(List.of(1L, 3L, 4L, 5L, 6L), carrito.planIds());
+        assertEquals(3, carrito.cantidad(3));
+        assertEquals(0, carrito.cantidad(2));
+    }
+
+    @Test
+    void seSerializaEnPocosBytes() throws Exception {
+        CarritoCompacto carrito = new CarritoCompacto();
+        carrito.agregar(7, 1);
+        carrito.agregar(1_000_000, 3);
+
+        byte[] bytes = carrito.serializar();
+        assertTrue(bytes.length <= 8, () -> "Carrito de " + bytes.length + " bytes");
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (ObjectOutputStream objetos = new ObjectOutputStream(salida)) {
+            objetos.writeObject(carrito);
+        }
+        CarritoCompacto copia;
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(salida.toByteArray()))) {
+            copia = (CarritoCompacto) entrada.readObject();
+        }
+        assertEquals(carrito.planIds(), copia.planIds());
+        assertEquals(3, copia.cantidad(1_000_000));
+    }
+
+    @Test
+    void conservaLaFranjaDeCadaPlan() {
+        CarritoCompacto carrito = new CarritoCompacto();
+        carrito.agregar(7, 1);
+        carrito.agregar(9, 1);
+        byte[] sinFranjas = carrito.serializar();
+        LocalDateTime fecha = LocalDateTime.of(2026, 3, 14, 15, 0);
+        carrito.asignarFranja(9, fecha);
+
+        CarritoCompacto copia = CarritoCompacto.deserializar(carrito.serializar());
+        assertNull(copia.franja(7));
+        assertEquals(fecha, copia.franja(9));
+        // Un carrito guardado sin franjas se sigue leyendo igual
+        assertEquals(List.of(7L, 9L), CarritoCompacto.deserializar(sinFranjas).planIds());
+    }
+}
@@ -0,0 +1,74 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
+
+/**
+ * Verifica la búsqueda de texto completo del catálogo: lematización en español,
+ * tildes indiferentes, ranking por nombre y exclusión de planes ocultos.
+ * Requiere Docker; sin él la prueba se omite.
+ */
+@DataJpaTest
+@Import(BusquedaPlanRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class BusquedaPlanRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BusquedaPlanRepository busquedaPlanRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void poblar() {
+        jdbcTemplate.update("""
+                INSERT INTO plan (nombre, descripcion, precio_base, activo) VALUES
+                ('Picnic en la playa', 'Una tarde junto al mar con canasta gourmet.', 40000, true),
+                ('Cena romántica', 'Cena a la luz de las velas en una terraza.', 50000, true),
+                ('Tour de viñas', 'Recorrido por viñedos; incluye picnic entre parras.', 60000, true),
+                ('Playa escondida', 'Cabañas frente al mar.', 70000, false)
+                """);
+    }
+
+    @Test
+    void ignoraTildesYReconocePlurales() {
+        assertEquals(List.of("Cena romántica"), nombres("ROMANTICAS"));
+        assertEquals(List.of("Tour de viñas"), nombres("vinas"));
+    }
+
+    @Test
+    void exigeTodasLasPalabrasYExcluyeLosPlanesOcultos() {
+        assertEquals(List.of("Picnic en la playa"), nombres("picnic playa"));
+        assertTrue(nombres("escondida").isEmpty());
+    }
+
+    @Test
+    void ordenaPrimeroLasCoincidenciasEnElNombre() {
+        assertEquals(List.of("Picnic en la playa", "Tour de viñas"), nombres("picnic"));
+    }
+
+    private List<String> nombres(String texto) {
+        return busquedaPlanRepository.buscar(texto, 10).stream().map(PlanResumen::nombre).toList();
+    }
+}
@@ -0,0 +1,95 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.FranjaPlan;
+import cl.sergiocarocca.cita_ideal_cl.entity.EstadoReserva;
+
+/**
+ * Verifica contra PostgreSQL la consulta de {@link ReservaBatchRepository#franjasOcupadas}:
+ * el cruce de los arreglos paralelos con {@code unnest} debe respetar cada par (plan, fecha)
+ * aunque el carrito mezcle planes y meses de distintas particiones, e ignorar las reservas
+ * canceladas. Requiere Docker; sin él la prueba se omite.
+ */
+@DataJpaTest
+@Import(ReservaBatchRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ReservaBatchRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ReservaBatchRepository reservaBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long planA;
+    private long planB;
+
+    // Dos meses futuros: la migración crea sus particiones
+    private final LocalDateTime mesUno = LocalDate.now().plusMonths(1).withDayOfMonth(10).atTime(10, 0);
+    private final LocalDateTime mesDos = LocalDate.now().plusMonths(2).withDayOfMonth(10).atTime(10, 0);
+
+    @BeforeEach
+    void poblar() {
+        planA = jdbcTemplate.queryForObject("INSERT INTO plan (nombre, descripcion, precio_base, activo) "
+                + "VALUES ('Plan A', 'Descripción', 50000, true) RETURNING id", Long.class);
+        planB = jdbcTemplate.queryForObject("INSERT INTO plan (nombre, descripcion, precio_base, activo) "
+                + "VALUES ('Plan B', 'Descripción', 60000, true) RETURNING id", Long.class);
+
+        reservar(planA, mesUno, EstadoReserva.CONFIRMADA, "CITA-A1");
+        reservar(planB, mesDos, EstadoReserva.PENDIENTE, "CITA-B2");
+        reservar(planB, mesUno, EstadoReserva.CANCELADA, "CITA-B1");
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT tableoid) FROM reservas WHERE tableoid <> 'reservas_default'::regclass",
+                Integer.class));
+    }
+
+    @Test
+    void devuelveSoloLosParesOcupados() {
+        Set<FranjaPlan> ocupadas = reservaBatchRepository.franjasOcupadas(List.of(
+                new FranjaPlan(planA, mesUno),                // ocupada
+                new FranjaPlan(planA, mesDos),                // el plan A está libre ese mes
+                new FranjaPlan(planB, mesUno),                // solo tiene una reserva cancelada
+                new FranjaPlan(planB, mesDos),                // ocupada, en la otra partición
+                new FranjaPlan(planA, mesUno.plusHours(1)))); // otro horario del mismo día
+
+        assertEquals(Set.of(new FranjaPlan(planA, mesUno), new FranjaPlan(planB, mesDos)), ocupadas);
+    }
+
+    @Test
+    void noCombinaPlanesYFechasDeParesDistintos() {
+        // Cruzar los arreglos como conjuntos formaría (A, mesUno) y (B, mesDos), que están ocupados
+        assertEquals(Set.of(), reservaBatchRepository.franjasOcupadas(List.of(
+                new FranjaPlan(planB, mesUno), new FranjaPlan(planA, mesDos))));
+        assertEquals(Set.of(), reservaBatchRepository.franjasOcupadas(List.of()));
+    }
+
+    private void reservar(long planId, LocalDateTime fecha, EstadoReserva estado, String codigo) {
+        jdbcTemplate.update("INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente, "
+                + "fecha_cita, estado, codigo_seguimiento) VALUES (?, 'Cliente', 'cliente@correo.cl', "
+                + "'+56900000000', ?, ?, ?)", planId, fecha, estado.getCodigo(), codigo);
+    }
+}
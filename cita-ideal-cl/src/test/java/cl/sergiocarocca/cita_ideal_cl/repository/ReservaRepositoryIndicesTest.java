@@ -0,0 +1,205 @@
+package cl.sergiocarocca.cita_ideal_cl.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * Verifica con EXPLAIN que las consultas del repositorio de reservas usan los índices
+ * creados por las migraciones y que solo recorren las particiones del rango consultado.
+ * Se explica el SQL que Hibernate genera al llamar a cada método del repositorio (capturado
+ * con un {@link StatementInspector}), preparado con los mismos argumentos, de modo que un
+ * cambio en la consulta se refleja en la prueba.
+ * Requiere Docker; sin él la prueba se omite.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "cl.sergiocarocca.cita_ideal_cl.repository.ReservaRepositoryIndicesTest$CapturaSql")
+@Import(ParticionesRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ReservaRepositoryIndicesTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ParticionesRepository particionesRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    /** Registra cada sentencia SQL que Hibernate envía a la base de datos. */
+    public static class CapturaSql implements StatementInspector {
+        private static final List<String> SENTENCIAS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            SENTENCIAS.add(sql);
+            return sql;
+        }
+    }
+
+    private static final LocalDateTime INICIO_MARZO = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime INICIO_ABRIL = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+    private long planId;
+
+    @BeforeEach
+    void poblar() {
+        em.createNativeQuery("""
+                INSERT INTO plan (nombre, descripcion, precio_base, activo)
+                SELECT 'Plan ' || p, 'Descripción', 50000, true FROM generate_series(1, 10) p
+                """).executeUpdate();
+        // 20.000 reservas cada 30 minutos repartidas entre los planes; una de cada cinco cancelada
+        em.createNativeQuery("""
+                INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente,
+                                      fecha_cita, estado, codigo_seguimiento)
+                SELECT (SELECT min(id) FROM plan) + i % 10, 'Cliente ' || i,
+                       'cliente' || (i % 2000) || '@correo.cl', '+56900000000',
+                       TIMESTAMP '2025-01-01 10:00' + i * INTERVAL '30 minutes',
+                       CASE WHEN i % 5 = 0 THEN 2 ELSE 1 END,
+                       'CITA-' || i
+                FROM generate_series(1, 20000) i
+                """).executeUpdate();
+        // La migración crea las particiones desde el mes en curso: según la fecha en que corra la
+        // prueba, parte de los datos cayó en reservas_default. Se crean las particiones faltantes
+        // de los meses con datos, que trasladan esas reservas desde la partición por defecto.
+        Object[] rango = (Object[]) em.createNativeQuery(
+                "SELECT to_char(min(fecha_cita), 'YYYY-MM'), to_char(max(fecha_cita), 'YYYY-MM') FROM reservas")
+                .getSingleResult();
+        YearMonth ultimo = YearMonth.parse((String) rango[1]);
+        Set<YearMonth> existentes = new HashSet<>(particionesRepository.mesesParticionados());
+        for (YearMonth mes = YearMonth.parse((String) rango[0]); !mes.isAfter(ultimo); mes = mes.plusMonths(1)) {
+            if (!existentes.contains(mes)) {
+                particionesRepository.crearParticion(mes);
+            }
+        }
+        em.createNativeQuery("ANALYZE reservas").executeUpdate();
+        planId = ((Number) em.createNativeQuery("SELECT min(id) FROM plan").getSingleResult()).longValue();
+    }
+
+    @Test
+    void existeReservaEnEsaFechaUsaIndiceParcial() {
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 0);
+        String plan = explicar(() -> reservaRepository.existeReservaEnEsaFecha(planId, fecha), planId, fecha);
+        // Los índices de cada partición se nombran <partición>_<columnas>_idx
+        assertUsaIndice(plan, "reservas_p202503_plan_id_fecha_cita_idx");
+        assertRecorreSoloMarzo(plan);
+    }
+
+    @Test
+    void findFechasOcupadasEntreUsaIndiceParcial() {
+        String plan = explicar(() -> reservaRepository.findFechasOcupadasEntre(planId, INICIO_MARZO, INICIO_ABRIL),
+                planId, INICIO_MARZO, INICIO_ABRIL);
+        assertUsaIndice(plan, "reservas_p202503_plan_id_fecha_cita_idx");
+    }
+
+    @Test
+    void findFechasOcupadasEntreRecorreSoloLaParticionDelMes() {
+        String plan = explicar(() -> reservaRepository.findFechasOcupadasEntre(planId, INICIO_MARZO, INICIO_ABRIL),
+                planId, INICIO_MARZO, INICIO_ABRIL);
+        assertRecorreSoloMarzo(plan);
+    }
+
+    @Test
+    void findByCodigoSeguimientoUsaIndice() {
+        String plan = explicar(() -> reservaRepository.findByCodigoSeguimiento("CITA-1234"), "CITA-1234");
+        assertUsaIndice(plan, "codigo_seguimiento_idx");
+    }
+
+    @Test
+    void findByEmailClienteUsaIndice() {
+        String plan = explicar(() -> reservaRepository.findByEmailCliente("cliente42@correo.cl"), "cliente42@correo.cl");
+        assertUsaIndice(plan, "email_cliente_idx");
+    }
+
+    @Test
+    void codigoSeguimientoRepetidoSeRechazaEnOtraParticion() {
+        // CITA-1234 es de enero de 2025; el duplicado cae en otra partición, donde ningún índice lo vería
+        assertThrows(PersistenceException.class, () -> em.createNativeQuery("""
+                INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente,
+                                      fecha_cita, estado, codigo_seguimiento)
+                VALUES (%d, 'Duplicado', 'duplicado@correo.cl', '+56900000000',
+                        TIMESTAMP '2025-09-01 10:00', 1, 'CITA-1234')
+                """.formatted(planId)).executeUpdate());
+    }
+
+    private void assertRecorreSoloMarzo(String plan) {
+        long particiones = Pattern.compile(" on reservas_(p\\d{6}|default)\\b").matcher(plan).results().count();
+        assertEquals(1, particiones, () -> "Se recorrió más de una partición:\n" + plan);
+        assertTrue(plan.contains("reservas_p202503"), () -> "No se usó la partición de marzo:\n" + plan);
+    }
+
+    private void assertUsaIndice(String plan, String indice) {
+        assertTrue(plan.contains(indice), () -> "No se usó " + indice + ":\n" + plan);
+        // Las particiones vacías (meses futuros) se recorren secuencialmente con costo cero
+        boolean recorridoSecuencial = plan.lines()
+                .anyMatch(l -> l.contains("Seq Scan on reservas") && !l.contains("cost=0.00..0.00"));
+        assertFalse(recorridoSecuencial, () -> "Recorrido secuencial:\n" + plan);
+    }
+
+    /**
+     * Ejecuta la llamada al repositorio, toma la sentencia que generó Hibernate y la explica
+     * preparada con los argumentos entregados (en el orden en que aparecen en la consulta).
+     * Las primeras ejecuciones de una sentencia preparada usan un plan propio para esos
+     * valores, igual que el driver al ejecutar la consulta real.
+     */
+    private String explicar(Runnable llamada, Object... argumentos) {
+        CapturaSql.SENTENCIAS.clear();
+        llamada.run();
+        String sql = CapturaSql.SENTENCIAS.get(CapturaSql.SENTENCIAS.size() - 1);
+
+        StringBuilder preparada = new StringBuilder();
+        Matcher marcador = Pattern.compile("\\?").matcher(sql);
+        int n = 0;
+        while (marcador.find()) {
+            marcador.appendReplacement(preparada, "\\$" + (++n));
+        }
+        marcador.appendTail(preparada);
+        assertEquals(argumentos.length, n, () -> "Parámetros de la consulta generada: " + sql);
+
+        List<String> valores = new ArrayList<>();
+        for (Object argumento : argumentos) {
+            valores.add(argumento instanceof Number ? argumento.toString() : "'" + argumento + "'");
+        }
+        em.createNativeQuery("PREPARE consulta_repositorio AS " + preparada).executeUpdate();
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> lineas = em.createNativeQuery(
+                    "EXPLAIN EXECUTE consulta_repositorio(" + String.join(", ", valores) + ")").getResultList();
+            return "-- " + sql + "\n" + String.join("\n", lineas);
+        } finally {
+            em.createNativeQuery("DEALLOCATE consulta_repositorio").executeUpdate();
+        }
+    }
+}
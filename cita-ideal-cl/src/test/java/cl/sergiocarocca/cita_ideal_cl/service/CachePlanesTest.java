@@ -0,0 +1,73 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.CatalogoSerializado;
+import cl.sergiocarocca.cita_ideal_cl.dto.PlanResumen;
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+
+class CachePlanesTest {
+
+    @Test
+    void sirveDesdeMemoriaHastaQueSeInvalida() {
+        CachePlanes cache = new CachePlanes(Duration.ofMinutes(10), 100);
+        AtomicInteger cargas = new AtomicInteger();
+        Plan plan = new Plan();
+        PlanResumen resumen = new PlanResumen(1L, "Cena romántica", null, null, "Descripción");
+
+        assertSame(plan, cache.porId(1L, () -> { cargas.incrementAndGet(); return plan; }));
+        assertSame(plan, cache.porId(1L, () -> { cargas.incrementAndGet(); return plan; }));
+        cache.activos(() -> { cargas.incrementAndGet(); return List.of(resumen); });
+        cache.activos(() -> { cargas.incrementAndGet(); return List.of(resumen); });
+        assertEquals(2, cargas.get());
+
+        cache.invalidar(1L);
+        cache.porId(1L, () -> { cargas.incrementAndGet(); return plan; });
+        cache.activos(() -> { cargas.incrementAndGet(); return List.of(resumen); });
+        assertEquals(4, cargas.get());
+        assertEquals(2L, cache.estadisticas().get("aciertos"));
+        assertEquals(4L, cache.estadisticas().get("fallos"));
+    }
+
+    @Test
+    void noGuardaLaCargaQueSeCruzoConUnaInvalidacion() {
+        CachePlanes cache = new CachePlanes(Duration.ofMinutes(10), 100);
+        Plan viejo = new Plan();
+        Plan nuevo = new Plan();
+
+        // Un administrador guarda el plan mientras otra petición lo estaba cargando
+        cache.porId(1L, () -> { cache.invalidar(1L); return viejo; });
+        assertSame(nuevo, cache.porId(1L, () -> nuevo));
+    }
+
+    @Test
+    void reconstruyeElCatalogoSerializadoTrasInvalidar() {
+        CachePlanes cache = new CachePlanes(Duration.ofMinutes(10), 100);
+
+        CatalogoSerializado primero = cache.serializado(() -> new CatalogoSerializado(new byte[0], "\"a\""));
+        assertSame(primero, cache.serializado(() -> new CatalogoSerializado(new byte[0], "\"b\"")));
+
+        cache.invalidar(null);
+        assertEquals("\"b\"", cache.serializado(() -> new CatalogoSerializado(new byte[0], "\"b\"")).etag());
+    }
+
+    @Test
+    void noGuardaPlanesInexistentesYRespetaElTtl() {
+        CachePlanes cache = new CachePlanes(Duration.ZERO, 100);
+        AtomicInteger cargas = new AtomicInteger();
+
+        assertNull(cache.porId(9L, () -> { cargas.incrementAndGet(); return null; }));
+        assertNull(cache.porId(9L, () -> { cargas.incrementAndGet(); return null; }));
+        cache.activos(() -> { cargas.incrementAndGet(); return List.of(); });
+        cache.activos(() -> { cargas.incrementAndGet(); return List.of(); });
+        assertEquals(4, cargas.get());
+    }
+}
@@ -0,0 +1,112 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class IndiceDisponibilidadTest {
+
+    private static final LocalDate HOY = LocalDate.of(2026, 10, 1);
+
+    @Test
+    void reclamarConcurrenteNoGeneraDoblesReservas() throws Exception {
+        IndiceDisponibilidad indice = new IndiceDisponibilidad();
+        indice.precargar(List.of(), HOY);
+
+        // 3 planes x 10 días x 3 horarios = 90 franjas disputadas por 32 hilos
+        List<Long> planes = List.of(1L, 2L, 3L);
+        List<LocalDateTime> fechas = new ArrayList<>();
+        for (int d = 0; d < 10; d++) {
+            for (int hora : new int[] { 10, 15, 20 }) {
+                fechas.add(HOY.plusDays(d).atTime(hora, 0));
+            }
+        }
+        AtomicIntegerArray ganadores = new AtomicIntegerArray(planes.size() * fechas.size());
+
+        int hilos = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int h = 0; h < hilos; h++) {
+            pool.submit(() -> {
+                largada.await();
+                for (int p = 0; p < planes.size(); p++) {
+                    for (int f = 0; f < fechas.size(); f++) {
+                        if (indice.reclamar(planes.get(p), fechas.get(f))) {
+                            ganadores.incrementAndGet(p * fechas.size() + f);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int i = 0; i < ganadores.length(); i++) {
+            assertEquals(1, ganadores.get(i), "Franja " + i + " reclamada por más de un cliente");
+        }
+    }
+
+    @Test
+    void liberarPermiteVolverAReclamar() {
+        IndiceDisponibilidad indice = new IndiceDisponibilidad();
+        indice.precargar(List.of(), HOY);
+        LocalDateTime fecha = HOY.atTime(15, 0);
+
+        assertTrue(indice.reclamar(7L, fecha));
+        assertTrue(indice.estaOcupado(7L, fecha));
+        assertFalse(indice.reclamar(7L, fecha));
+
+        indice.liberar(7L, fecha);
+        assertFalse(indice.estaOcupado(7L, fecha));
+        assertTrue(indice.reclamar(7L, fecha));
+    }
+
+    @Test
+    void losCambiosDuranteLaPrecargaNoSePierden() {
+        IndiceDisponibilidad indice = new IndiceDisponibilidad();
+        LocalDateTime confirmada = HOY.atTime(10, 0);
+        LocalDateTime cancelada = HOY.atTime(15, 0);
+
+        indice.iniciarPrecarga();
+        // La consulta de precarga ya leyó la reserva de las 15:00, pero no la de las 10:00
+        List<Object[]> leidas = List.<Object[]>of(new Object[] { 7L, cancelada });
+        indice.marcar(7L, confirmada);
+        indice.liberar(7L, cancelada);
+        assertFalse(indice.cubre(confirmada));
+
+        indice.precargar(leidas, HOY);
+
+        assertTrue(indice.cubre(confirmada));
+        assertTrue(indice.estaOcupado(7L, confirmada));
+        assertFalse(indice.estaOcupado(7L, cancelada));
+    }
+
+    @Test
+    void losMesesConReservasNoAlineadasQuedanParaLaBase() {
+        IndiceDisponibilidad indice = new IndiceDisponibilidad();
+        YearMonth mes = YearMonth.from(HOY);
+        indice.precargar(List.<Object[]>of(new Object[] { 7L, HOY.atTime(10, 15) }), HOY);
+
+        // La consulta a la base marcaría el bit de las 10:00 para ese mes: el índice no lo responde
+        assertFalse(indice.cubreMes(mes));
+        assertTrue(indice.cubreMes(mes.plusMonths(1)));
+
+        indice.marcar(7L, HOY.plusMonths(1).atTime(9, 45, 30));
+        assertFalse(indice.cubreMes(mes.plusMonths(1)));
+    }
+}
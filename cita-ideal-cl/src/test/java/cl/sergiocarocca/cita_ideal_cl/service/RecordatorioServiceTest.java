@@ -0,0 +1,95 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Verifica que el despachador envía un único recordatorio por reserva y tipo, solo a
+ * las reservas activas cuya hora de aviso ya llegó, recorriendo varias páginas.
+ * Usa un SMTP en memoria (GreenMail) y requiere Docker para la base de datos.
+ */
+@SpringBootTest(properties = {
+        "spring.mail.port=3025",
+        "citaideal.recordatorios.habilitado=false",
+        "citaideal.recordatorios.tamano-lote=2"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class RecordatorioServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private RecordatorioService recordatorioService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void poblar() {
+        jdbcTemplate.execute("TRUNCATE reservas, reservas_codigos, recordatorios_enviados, plan RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO plan (nombre, descripcion, precio_base, activo) "
+                + "VALUES ('Cena romántica', 'Descripción', 50000, true)");
+        LocalDateTime ahora = LocalDateTime.now();
+        // Vencen para el aviso de 24 horas (más que el tamaño de página)
+        for (int i = 1; i <= 5; i++) {
+            insertarReserva("dia" + i, ahora.plusHours(23).plusMinutes(30 + i), 1);
+        }
+        // Vence para el aviso de 2 horas
+        insertarReserva("horas", ahora.plusMinutes(90), 1);
+        // Aún no vence ningún aviso
+        insertarReserva("lejos", ahora.plusHours(10), 0);
+        // Cancelada: nunca recibe avisos
+        insertarReserva("cancelada", ahora.plusHours(23).plusMinutes(45), 2);
+    }
+
+    @Test
+    void enviaUnRecordatorioPorReservaVencida() throws Exception {
+        assertEquals(6, recordatorioService.despachar());
+
+        MimeMessage[] recibidos = smtp.getReceivedMessages();
+        Set<String> destinatarios = new HashSet<>();
+        for (MimeMessage mensaje : recibidos) {
+            destinatarios.add(GreenMailUtil.getAddressList(mensaje.getAllRecipients()));
+        }
+        assertEquals(Set.of("dia1@correo.cl", "dia2@correo.cl", "dia3@correo.cl", "dia4@correo.cl",
+                "dia5@correo.cl", "horas@correo.cl"), destinatarios);
+        assertTrue(((String) recibidos[0].getContent()).contains("Cena romántica"));
+
+        // Una segunda pasada no repite ningún correo
+        assertEquals(0, recordatorioService.despachar());
+        assertEquals(6, smtp.getReceivedMessages().length);
+    }
+
+    private void insertarReserva(String cliente, LocalDateTime fecha, int estado) {
+        jdbcTemplate.update("INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente, "
+                        + "fecha_cita, estado, codigo_seguimiento) "
+                        + "VALUES ((SELECT min(id) FROM plan), ?, ?, '+56900000000', ?, ?, ?)",
+                cliente, cliente + "@correo.cl", fecha, estado, "CITA-" + cliente);
+    }
+}
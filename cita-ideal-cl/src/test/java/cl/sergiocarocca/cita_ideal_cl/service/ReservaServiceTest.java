@@ -0,0 +1,191 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+import cl.sergiocarocca.cita_ideal_cl.entity.Reserva;
+import cl.sergiocarocca.cita_ideal_cl.repository.PlanRepository;
+
+/**
+ * Verifica contra PostgreSQL que las reservas concurrentes de una misma franja terminan
+ * en una sola fila, tanto cuando el índice en memoria cubre la fecha como cuando la única
+ * barrera es el índice único parcial de la base de datos, y que el checkout del carrito
+ * reserva todas las franjas o ninguna sin dejar reclamos en el índice. También que una marca
+ * del índice sin reserva en la base (cancelada en otro nodo) no bloquea la franja. Requiere Docker.
+ */
+@SpringBootTest(properties = "citaideal.recordatorios.habilitado=false")
+@Testcontainers(disabledWithoutDocker = true)
+class ReservaServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private IndiceDisponibilidad indiceDisponibilidad;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Plan plan;
+    private Plan otroPlan;
+
+    @BeforeEach
+    void poblar() {
+        jdbcTemplate.execute("TRUNCATE reservas, reservas_codigos, plan RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("INSERT INTO plan (nombre, descripcion, precio_base, activo) "
+                + "VALUES ('Cena romántica', 'Descripción', 50000, true), ('Picnic', 'Descripción', 40000, true)");
+        plan = planRepository.findAll().get(0);
+        otroPlan = planRepository.findAll().get(1);
+        reservaService.precargarIndice();
+    }
+
+    @Test
+    void reservasConcurrentesEnFranjaDelIndiceDejanUnaFila() throws Exception {
+        assertUnaReserva(LocalDate.now().plusDays(3).atTime(10, 0));
+    }
+
+    @Test
+    void reservasConcurrentesFueraDelIndiceDejanUnaFila() throws Exception {
+        // 10:15 no está alineada a una franja: el índice no la cubre y decide la base de datos
+        assertUnaReserva(LocalDate.now().plusDays(3).atTime(10, 15));
+    }
+
+    @Test
+    void carritoConUnaFranjaTomadaSeRechazaCompleto() throws Exception {
+        LocalDateTime enIndice = LocalDate.now().plusDays(3).atTime(10, 0);
+        LocalDateTime fueraDelIndice = LocalDate.now().plusDays(4).atTime(10, 15);
+        reservaService.crearReserva(new Reserva(otroPlan, "Otro", "otro@correo.cl", "+56900000000", fueraDelIndice));
+
+        assertThrows(Exception.class, () -> reservaService.guardarReservaMultiple(
+                List.of(item(plan, enIndice), item(otroPlan, fueraDelIndice)), cliente()));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM reservas", Integer.class));
+        assertFalse(indiceDisponibilidad.estaOcupado(plan.getId(), enIndice));
+    }
+
+    @Test
+    void reclamoParcialEnElIndiceSeDeshace() throws Exception {
+        LocalDateTime fecha = LocalDate.now().plusDays(3).atTime(11, 0);
+        reservaService.crearReserva(new Reserva(otroPlan, "Otro", "otro@correo.cl", "+56900000000", fecha));
+
+        // Se reclama la franja del primer ítem y falla la del segundo
+        assertThrows(Exception.class, () -> reservaService.guardarReservaMultiple(
+                List.of(item(plan, fecha), item(otroPlan, fecha)), cliente()));
+
+        assertFalse(indiceDisponibilidad.estaOcupado(plan.getId(), fecha));
+        reservaService.crearReserva(new Reserva(plan, "Cliente", "cliente@correo.cl", "+56900000000", fecha));
+    }
+
+    @Test
+    void loteRechazadoPorLaBaseLiberaTodosLosReclamos() {
+        LocalDateTime fecha = LocalDate.now().plusDays(3).atTime(12, 0);
+        // Una reserva que el índice no conoce: ambos reclamos pasan y el lote choca con el índice único
+        jdbcTemplate.update("INSERT INTO reservas (plan_id, nombre_cliente, email_cliente, telefono_cliente, "
+                + "fecha_cita, estado, codigo_seguimiento) VALUES (?, 'Otro', 'otro@correo.cl', '+56900000000', "
+                + "?, 1, 'CITA-EXTERNA')", otroPlan.getId(), fecha);
+
+        assertThrows(Exception.class, () -> reservaService.guardarReservaMultiple(
+                List.of(item(plan, fecha), item(otroPlan, fecha)), cliente()));
+
+        // El rollback no consulta la base: libera los dos reclamos, incluido el de la franja que choca
+        assertFalse(indiceDisponibilidad.estaOcupado(plan.getId(), fecha));
+        assertFalse(indiceDisponibilidad.estaOcupado(otroPlan.getId(), fecha));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM reservas", Integer.class));
+    }
+
+    @Test
+    void unaMarcaDelIndiceSinReservaEnLaBaseNoBloqueaLaFranja() throws Exception {
+        // Reservas que otro nodo canceló: este índice las sigue viendo ocupadas
+        LocalDateTime individual = LocalDate.now().plusDays(3).atTime(16, 0);
+        LocalDateTime enCarrito = LocalDate.now().plusDays(3).atTime(17, 0);
+        indiceDisponibilidad.marcar(plan.getId(), individual);
+        indiceDisponibilidad.marcar(otroPlan.getId(), enCarrito);
+
+        assertFalse(reservaService.verificarOcupado(plan.getId(), individual));
+        reservaService.crearReserva(new Reserva(plan, "Cliente", "cliente@correo.cl", "+56900000000", individual));
+        reservaService.guardarReservaMultiple(List.of(item(plan, enCarrito), item(otroPlan, enCarrito)), cliente());
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM reservas", Integer.class));
+        assertTrue(reservaService.verificarOcupado(otroPlan.getId(), enCarrito));
+    }
+
+    @Test
+    void carritoConFechaPasadaSeRechaza() {
+        LocalDateTime pasada = LocalDate.now().minusDays(1).atTime(10, 0);
+
+        assertThrows(Exception.class, () -> reservaService.guardarReservaMultiple(
+                List.of(item(plan, pasada)), cliente()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM reservas", Integer.class));
+    }
+
+    private static ItemCarrito item(Plan plan, LocalDateTime fecha) {
+        ItemCarrito item = new ItemCarrito(plan, 1);
+        item.setFechaCita(fecha);
+        return item;
+    }
+
+    private static Reserva cliente() {
+        return new Reserva(null, "Cliente", "cliente@correo.cl", "+56900000000", null);
+    }
+
+    private void assertUnaReserva(LocalDateTime fecha) throws Exception {
+        int hilos = 16;
+        AtomicInteger creadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int h = 0; h < hilos; h++) {
+            int cliente = h;
+            pool.submit(() -> {
+                largada.await();
+                try {
+                    reservaService.crearReserva(new Reserva(plan, "Cliente " + cliente,
+                            "cliente" + cliente + "@correo.cl", "+56900000000", fecha));
+                    creadas.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rechazadas.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(1, creadas.get());
+        assertEquals(hilos - 1, rechazadas.get());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservas WHERE plan_id = ? AND fecha_cita = ?",
+                Integer.class, plan.getId(), fecha));
+    }
+}
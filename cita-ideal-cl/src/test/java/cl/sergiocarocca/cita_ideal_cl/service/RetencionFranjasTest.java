@@ -0,0 +1,179 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import cl.sergiocarocca.cita_ideal_cl.repository.RetencionFranjasRepository;
+
+/**
+ * Verifica contra PostgreSQL las retenciones de franjas: su expiración con la rueda
+ * temporizadora, la renovación, que solo el dueño las libere y que dos nodos (dos
+ * instancias sobre la misma tabla) no puedan retener la misma franja. Sin transacción de
+ * prueba, para que los hilos concurrentes vean las filas. Requiere Docker.
+ */
+@DataJpaTest
+@Import(RetencionFranjasRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class RetencionFranjasTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2026, 10, 1, 15, 0);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private RetencionFranjasRepository retencionFranjasRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Las retenciones duran 3 ticks de la rueda (un tick por segundo). */
+    private RetencionFranjas retenciones;
+
+    @BeforeEach
+    void limpiar() {
+        jdbcTemplate.execute("TRUNCATE retenciones_franjas");
+        retenciones = nodo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void laRetencionExpiraSola() {
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+        assertTrue(retenciones.retenidaPorOtro(7L, FECHA, "cliente-b"));
+        assertFalse(retenciones.retenidaPorOtro(7L, FECHA, "cliente-a"));
+
+        avanzar(2);
+        assertTrue(retenciones.estaRetenida(7L, FECHA));
+        avanzar(1);
+        assertFalse(retenciones.estaRetenida(7L, FECHA));
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-b"));
+    }
+
+    @Test
+    void renovarReiniciaElPlazo() {
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+        avanzar(2);
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+
+        // El temporizador anterior habría expirado en el tick 3
+        avanzar(2);
+        assertTrue(retenciones.estaRetenida(7L, FECHA));
+        avanzar(1);
+        assertFalse(retenciones.estaRetenida(7L, FECHA));
+    }
+
+    @Test
+    void soloElDuenoPuedeLiberar() {
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+        assertFalse(retenciones.retener(7L, FECHA, "cliente-b"));
+
+        retenciones.liberar(7L, FECHA, "cliente-b", false);
+        retenciones.liberar(7L, FECHA, null, false);
+        assertTrue(retenciones.estaRetenida(7L, FECHA));
+
+        retenciones.liberar(7L, FECHA, "cliente-a", false);
+        assertFalse(retenciones.estaRetenida(7L, FECHA));
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-b"));
+        // La franja de otro plan o de otro horario no se ve afectada
+        assertFalse(retenciones.estaRetenida(8L, FECHA));
+        assertFalse(retenciones.estaRetenida(7L, FECHA.plusMinutes(30)));
+    }
+
+    @Test
+    void otroNodoVeLaRetencion() {
+        RetencionFranjas otroNodo = nodo(Duration.ofSeconds(3));
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+
+        assertTrue(otroNodo.retenidaPorOtro(7L, FECHA, "cliente-b"));
+        assertFalse(otroNodo.retener(7L, FECHA, "cliente-b"));
+        long[] dias = new long[31];
+        otroNodo.marcarRetenidas(7L, YearMonth.from(FECHA), dias);
+        assertEquals(IndiceDisponibilidad.bit(FECHA), dias[0]);
+
+        // La confirmación puede llegar a otro nodo: libera la retención creada en el primero
+        otroNodo.liberar(7L, FECHA, "cliente-a", false);
+        assertFalse(retenciones.estaRetenida(7L, FECHA));
+    }
+
+    @Test
+    void laRetencionDeUnNodoDetenidoVenceSinSuRueda() throws Exception {
+        RetencionFranjas detenido = nodo(Duration.ofMillis(500));
+        assertTrue(detenido.retener(7L, FECHA, "cliente-a"));
+
+        // Nadie avanza la rueda del nodo detenido: vence por el reloj de la base de datos
+        Thread.sleep(700);
+        assertFalse(retenciones.estaRetenida(7L, FECHA));
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-b"));
+
+        assertTrue(detenido.retener(8L, FECHA, "cliente-c"));
+        Thread.sleep(700);
+        retenciones.limpiarVencidas();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM retenciones_franjas", Integer.class));
+    }
+
+    @Test
+    void entreRenovacionesConcurrentesNoSeColaOtroToken() throws Exception {
+        int hilos = 8;
+        AtomicInteger exitosOtros = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        assertTrue(retenciones.retener(7L, FECHA, "cliente-a"));
+        for (int h = 0; h < hilos; h++) {
+            String token = h % 2 == 0 ? "cliente-a" : "cliente-" + h;
+            pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 100; i++) {
+                    if (retenciones.retener(7L, FECHA, token) && !token.equals("cliente-a")) {
+                        exitosOtros.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Las renovaciones del dueño nunca dejan una ventana para otro token
+        assertEquals(0, exitosOtros.get());
+        assertFalse(retenciones.retenidaPorOtro(7L, FECHA, "cliente-a"));
+    }
+
+    private RetencionFranjas nodo(Duration duracion) {
+        return new RetencionFranjas(duracion, retencionFranjasRepository,
+                new CacheDisponibilidad(Duration.ofMillis(500)), new NotificadorFranjas());
+    }
+
+    private void avanzar(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            retenciones.avanzar();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package cl.sergiocarocca.cita_ideal_cl.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import cl.sergiocarocca.cita_ideal_cl.dto.Dinero;
+import cl.sergiocarocca.cita_ideal_cl.entity.ItemCarrito;
+import cl.sergiocarocca.cita_ideal_cl.entity.Plan;
+
+/**
+ * Compara el total del carrito calculado con {@link Dinero} (pesos en un {@code long})
+ * contra el cálculo anterior con un stream de {@link BigDecimal}. Se ejecuta con el
+ * perfilador de GC para reportar los bytes asignados por operación ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Ejecución (ver pom.xml): {@code java -cp target/test-classes:target/classes:$(cat target/benchmark.cp)
+ * cl.sergiocarocca.cita_ideal_cl.service.TotalCarritoBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotalCarritoBenchmark {
+
+    private final CarritoService carritoService = new CarritoService(null, null);
+    private final List<ItemCarrito> items = new ArrayList<>();
+
+    public TotalCarritoBenchmark() {
+        for (int i = 1; i <= 5; i++) {
+            Plan plan = new Plan();
+            plan.setId((long) i);
+            plan.setPrecioBase(new BigDecimal(i * 12_990 + ".00"));
+            items.add(new ItemCarrito(plan, i));
+        }
+    }
+
+    @Benchmark
+    public Dinero totalDinero() {
+        return carritoService.total(items);
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimalAnterior() {
+        return items.stream()
+                .map(item -> item.getPlan().getPrecioBase().multiply(new BigDecimal(item.getCantidad())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TotalCarritoBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package cl.sergiocarocca.cita_ideal_cl.util;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compara el generador de códigos basado en secuencia con el anterior (substring de un UUID
+ * aleatorio) con varios hilos generando a la vez. La secuencia de la base de datos se
+ * reemplaza por un contador en memoria, que es lo que cuesta un bloque ya reservado.
+ * <p>
+ * Ejecución (ver pom.xml): {@code java -cp target/test-classes:target/classes:$(cat target/benchmark.cp)
+ * cl.sergiocarocca.cita_ideal_cl.util.GeneradorCodigoBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class GeneradorCodigoBenchmark {
+
+    private final AtomicLong secuencia = new AtomicLong(1);
+
+    private final GeneradorCodigo generador =
+            new GeneradorCodigo(() -> secuencia.getAndAdd(GeneradorCodigo.TAMANO_BLOQUE), 0x5EED);
+
+    @Benchmark
+    public String secuenciaBase32() {
+        return generador.generar();
+    }
+
+    @Benchmark
+    public String uuidAnterior() {
+        return "CITA-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase(Locale.ROOT);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(GeneradorCodigoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
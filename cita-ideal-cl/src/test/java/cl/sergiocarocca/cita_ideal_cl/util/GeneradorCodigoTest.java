@@ -0,0 +1,57 @@
+package cl.sergiocarocca.cita_ideal_cl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class GeneradorCodigoTest {
+
+    @Test
+    void generarEnParaleloNoRepiteCodigos() throws Exception {
+        AtomicLong secuencia = new AtomicLong(1);
+        GeneradorCodigo generador =
+                new GeneradorCodigo(() -> secuencia.getAndAdd(GeneradorCodigo.TAMANO_BLOQUE), 12345);
+        Set<String> codigos = ConcurrentHashMap.newKeySet();
+
+        int hilos = 16;
+        int porHilo = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        for (int h = 0; h < hilos; h++) {
+            pool.execute(() -> {
+                for (int i = 0; i < porHilo; i++) {
+                    codigos.add(generador.generar());
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(hilos * porHilo, codigos.size());
+        assertTrue(codigos.stream().allMatch(GeneradorCodigo::esValido));
+    }
+
+    @Test
+    void digitoVerificadorDetectaErroresDeTipeo() {
+        GeneradorCodigo generador = new GeneradorCodigo(() -> 1, 0);
+        String codigo = generador.codificar(987_654_321L);
+        assertTrue(GeneradorCodigo.esValido(codigo));
+
+        // Cualquier cambio de un carácter invalida el código
+        for (int i = GeneradorCodigo.PREFIJO.length(); i < codigo.length(); i++) {
+            char original = codigo.charAt(i);
+            char cambiado = original == '7' ? '8' : '7';
+            String alterado = codigo.substring(0, i) + cambiado + codigo.substring(i + 1);
+            assertFalse(GeneradorCodigo.esValido(alterado), alterado);
+        }
+        assertFalse(GeneradorCodigo.esValido("CITA-1A2B3C4D"));
+    }
+}
@@ -0,0 +1,54 @@
+package cl.sergiocarocca.cita_ideal_cl.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RuedaTemporizadoraTest {
+
+    private final List<String> expirados = new ArrayList<>();
+    private final RuedaTemporizadora<String> rueda =
+            new RuedaTemporizadora<>(8, Duration.ofSeconds(1), expirados::add);
+
+    @Test
+    void expiraAlCumplirseElRetraso() {
+        rueda.programar("a", Duration.ofSeconds(3));
+
+        avanzar(2);
+        assertTrue(expirados.isEmpty());
+        avanzar(1);
+        assertEquals(List.of("a"), expirados);
+    }
+
+    @Test
+    void unRetrasoMayorQueUnaVueltaEsperaLasRondas() {
+        // 20 ticks en una rueda de 8 ranuras: pasa dos veces por su ranura antes de expirar
+        rueda.programar("a", Duration.ofSeconds(20));
+
+        avanzar(19);
+        assertTrue(expirados.isEmpty());
+        avanzar(1);
+        assertEquals(List.of("a"), expirados);
+    }
+
+    @Test
+    void cancelarEvitaLaExpiracion() {
+        RuedaTemporizadora.Temporizador<String> temporizador = rueda.programar("a", Duration.ofSeconds(2));
+        rueda.programar("b", Duration.ofSeconds(2));
+        temporizador.cancelar();
+
+        avanzar(16);
+        assertEquals(List.of("b"), expirados);
+    }
+
+    private void avanzar(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            rueda.avanzar();
+        }
+    }
+}